@@ -0,0 +1,67 @@
+package chess.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chess.ChessMatch;
+
+/**
+ * Deteccao de check mate em uma posicao de mate e em uma de cheque com fuga. A
+ * partida guarda os movimentos legais do ply, entao o teste e medido em uma
+ * copia nova a cada chamada e, separadamente, com a lista ja calculada.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CheckMateBenchmark {
+
+	@Param({ "MATE", "NEAR_MATE" })
+	public String position;
+
+	private ChessMatch match;
+
+	@Setup
+	public void setup() {
+		match = new ChessMatch(Positions.byName(position));
+	}
+
+	/**
+	 * Copia da partida sem os movimentos legais calculados, refeita a cada
+	 * chamada
+	 */
+	@State(Scope.Thread)
+	public static class Copia {
+
+		ChessMatch match;
+
+		@Setup(Level.Invocation)
+		public void setup(CheckMateBenchmark benchmark) {
+			match = new ChessMatch(benchmark.match);
+		}
+	}
+
+	@Benchmark
+	public boolean testCheckMate(Copia copia) {
+		return copia.match.isCheckMate(copia.match.getJogadorAtual());
+	}
+
+	@Benchmark
+	public boolean testCheckMateCached() {
+		return match.isCheckMate(match.getJogadorAtual());
+	}
+}
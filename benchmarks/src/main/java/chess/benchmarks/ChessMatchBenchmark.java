@@ -0,0 +1,155 @@
+package chess.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Color;
+import chess.Move;
+import chess.MoveStatus;
+
+/**
+ * Caminhos quentes da partida: jogada validada, teste de cheque, copia das
+ * pecas, geracao de todos os movimentos, leitura/escrita de FEN e rejeicao de
+ * jogadas invalidas com excecao e com codigo de status. Os benchmarks que
+ * consultam os movimentos legais do ply usam uma copia nova da partida a cada
+ * chamada; as variantes "Cached" medem a consulta com a lista ja calculada.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChessMatchBenchmark {
+
+	@Param({ "START", "MIDDLEGAME" })
+	public String position;
+
+	private ChessMatch match;
+	private ChessPosition source;
+	private ChessPosition target;
+	private int[] moves = new int[Move.MAX_MOVES];
+	private StringBuilder fen = new StringBuilder(90);
+	private final ChessPosition casaVazia = new ChessPosition('e', 3);
+	private final ChessPosition destinoVazio = new ChessPosition('e', 4);
+	private final int movimentoInvalido = Move.parse("e3e4");
+	private int movimentoIlegal;
+
+	@Setup
+	public void setup() {
+		match = new ChessMatch(Positions.byName(position));
+		// e2-e4 na abertura, Bd2-g5 no meio-jogo
+		source = position.equals("START") ? new ChessPosition('e', 2) : new ChessPosition('d', 2);
+		target = position.equals("START") ? new ChessPosition('e', 4) : new ChessPosition('g', 5);
+		// destino vazio que a peca de origem nao alcanca
+		movimentoIlegal = Move.parse(position.equals("START") ? "e2e5" : "d2d4");
+	}
+
+	/**
+	 * Copia da partida sem os movimentos legais calculados, refeita a cada
+	 * chamada
+	 */
+	@State(Scope.Thread)
+	public static class Copia {
+
+		ChessMatch match;
+
+		@Setup(Level.Invocation)
+		public void setup(ChessMatchBenchmark benchmark) {
+			match = new ChessMatch(benchmark.match);
+		}
+	}
+
+	/**
+	 * Jogada completa com validacao, seguida de desfazer para manter a posicao
+	 */
+	@Benchmark
+	public ChessPiece executarMovimentoXadrez() {
+		ChessPiece capturada = match.executarMovimentoXadrez(source, target);
+		match.desfazMovimento();
+		return capturada;
+	}
+
+	@Benchmark
+	public boolean testCheck() {
+		return match.isInCheck(Color.WHITE);
+	}
+
+	@Benchmark
+	public ChessPiece[][] getPieces() {
+		return match.getPieces();
+	}
+
+	@Benchmark
+	public int generateMoves() {
+		return match.generateMoves(moves);
+	}
+
+	@Benchmark
+	public int generateLegalMoves() {
+		return match.generateLegalMoves(moves);
+	}
+
+	@Benchmark
+	public ChessMatch fromFen() {
+		return new ChessMatch(Positions.byName(position));
+	}
+
+	@Benchmark
+	public StringBuilder toFen() {
+		fen.setLength(0);
+		return match.appendFen(fen);
+	}
+
+	/**
+	 * Jogada rejeitada (origem vazia) pelo caminho com excecao
+	 */
+	@Benchmark
+	public String rejeitadoComExcecao() {
+		try {
+			match.executarMovimentoXadrez(casaVazia, destinoVazio);
+			return null;
+		} catch (ChessException e) {
+			return e.getMessage();
+		}
+	}
+
+	@Benchmark
+	public MoveStatus rejeitadoComStatus(Copia copia) {
+		return copia.match.validateMove(movimentoInvalido);
+	}
+
+	@Benchmark
+	public MoveStatus rejeitadoComStatusCached() {
+		return match.validateMove(movimentoInvalido);
+	}
+
+	/**
+	 * Jogada rejeitada pelo destino, que depende dos movimentos legais do ply
+	 */
+	@Benchmark
+	public MoveStatus destinoIlegal(Copia copia) {
+		return copia.match.validateMove(movimentoIlegal);
+	}
+
+	@Benchmark
+	public MoveStatus destinoIlegalCached() {
+		return match.validateMove(movimentoIlegal);
+	}
+}
@@ -0,0 +1,50 @@
+package chess.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.PieceType;
+
+/**
+ * Conversoes entre a notacao do xadrez e as posicoes do tabuleiro
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChessPositionBenchmark {
+
+	private ChessPiece piece;
+	private char column = 'e';
+	private int row = 4;
+
+	@Setup
+	public void setup() {
+		piece = Positions.firstPiece(new ChessMatch(), PieceType.KING);
+	}
+
+	@Benchmark
+	public int toSquare() {
+		return new ChessPosition(column, row).getSquare();
+	}
+
+	@Benchmark
+	public ChessPosition fromPosition() {
+		return piece.getChessPosition();
+	}
+}
@@ -0,0 +1,58 @@
+package chess.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Move;
+import chess.PieceType;
+
+/**
+ * Geracao de movimentos de uma peca de cada tipo em uma posicao de meio-jogo
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PieceMovesBenchmark {
+
+	@Param({ "PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING" })
+	public String pieceType;
+
+	private ChessPiece piece;
+	private int[] moves = new int[Move.MAX_MOVES];
+
+	@Setup
+	public void setup() {
+		piece = Positions.firstPiece(new ChessMatch(Positions.MIDDLEGAME), PieceType.valueOf(pieceType));
+	}
+
+	@Benchmark
+	public boolean[][] possibleMoves() {
+		return piece.possibleMoves();
+	}
+
+	@Benchmark
+	public long possibleMovesBitboard() {
+		return piece.possibleMovesBitboard();
+	}
+
+	@Benchmark
+	public int generateMoves() {
+		return piece.generateMoves(moves, 0);
+	}
+}
@@ -0,0 +1,61 @@
+package chess.benchmarks;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+import chess.PieceType;
+
+/**
+ * Posicoes FEN usadas pelos benchmarks
+ */
+final class Positions {
+
+	static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+	/**
+	 * Meio-jogo com muitas pecas deslizantes, roques e en passant disponiveis
+	 */
+	static final String MIDDLEGAME = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+	/**
+	 * Pretas levaram mate do pastor
+	 */
+	static final String MATE = "r1bqkb1r/pppp1Qpp/2n2n2/4p3/2B1P3/8/PPPP1PPP/RNB1K1NR b KQkq - 0 4";
+
+	/**
+	 * Pretas em cheque, mas o rei pode capturar a dama
+	 */
+	static final String NEAR_MATE = "r1bqkbnr/pppp1Qpp/2n5/4p3/4P3/8/PPPP1PPP/RNB1KBNR b KQkq - 0 3";
+
+	private Positions() {
+	}
+
+	static String byName(String name) {
+		switch (name) {
+		case "START":
+			return START;
+		case "MIDDLEGAME":
+			return MIDDLEGAME;
+		case "MATE":
+			return MATE;
+		case "NEAR_MATE":
+			return NEAR_MATE;
+		default:
+			throw new IllegalArgumentException("Posicao desconhecida: " + name);
+		}
+	}
+
+	/**
+	 * Primeira peca branca do tipo informado, varrendo o tabuleiro a partir de a8
+	 */
+	static ChessPiece firstPiece(ChessMatch match, PieceType type) {
+		for (ChessPiece[] linha : match.getPieces()) {
+			for (ChessPiece p : linha) {
+				if (p != null && p.getType() == type && p.getColor() == Color.WHITE) {
+					return p;
+				}
+			}
+		}
+		throw new IllegalStateException("Nao ha " + type + " branco na posicao");
+	}
+}
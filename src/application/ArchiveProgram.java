@@ -0,0 +1,70 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import chess.ChessMatch;
+import chess.Move;
+import chess.archive.GameArchive;
+
+/**
+ * Consulta um arquivo binario de partidas gravado por PgnProgram -o. Uso:
+ *
+ * <pre>
+ * ArchiveProgram &lt;arquivo.cga&gt; [id]
+ * </pre>
+ *
+ * Com um id, imprime os movimentos e a posicao final da partida. Sem id,
+ * reproduz todas as partidas e imprime a velocidade da leitura.
+ *
+ * @author fsouviei
+ *
+ */
+public class ArchiveProgram {
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Uso: ArchiveProgram <arquivo.cga> [id]");
+			return;
+		}
+		Path file = Paths.get(args[0]);
+		try (GameArchive archive = new GameArchive(file)) {
+			if (args.length > 1) {
+				imprimir(archive, Long.parseLong(args[1]));
+				return;
+			}
+			long inicio = System.nanoTime();
+			long plies = 0;
+			for (long id = 0; id < archive.size(); id++) {
+				ChessMatch match = archive.startPosition(id);
+				plies += archive.replay(id, match, GameArchive.MAX_PLIES);
+			}
+			long tempo = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+			long bytes = Files.size(file);
+			System.out.println("Partidas : " + archive.size());
+			System.out.println("Plies : " + plies);
+			System.out.printf("Bytes por movimento : %.2f%n", plies == 0 ? 0.0 : (double) bytes / plies);
+			System.out.println("Tempo : " + tempo + " ms");
+			System.out.println("Plies/s : " + plies * 1000 / tempo);
+		}
+	}
+
+	private static void imprimir(GameArchive archive, long id) {
+		int[] moves = new int[archive.plies(id)];
+		archive.moves(id, moves);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < moves.length; i++) {
+			if (i % 2 == 0) {
+				sb.append(i / 2 + 1).append(". ");
+			}
+			sb.append(Move.toString(moves[i])).append(' ');
+		}
+		sb.append(GameArchive.resultString(archive.result(id)));
+		System.out.println(sb);
+		ChessMatch match = archive.startPosition(id);
+		archive.replay(id, match, moves.length);
+		System.out.println(match.toFen());
+	}
+}
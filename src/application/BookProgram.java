@@ -0,0 +1,84 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Move;
+import chess.archive.GameArchive;
+import chess.book.BookBuilder;
+import chess.book.OpeningBook;
+
+/**
+ * Monta e consulta livros de aberturas. Uso:
+ *
+ * <pre>
+ * BookProgram build &lt;arquivo.cga&gt; &lt;livro.bin&gt; [-plies N] [-min N]
+ * BookProgram probe &lt;livro.bin&gt; [fen]
+ * </pre>
+ *
+ * @author fsouviei
+ *
+ */
+public class BookProgram {
+
+	public static void main(String[] args) throws IOException {
+		if (args.length >= 3 && args[0].equals("build")) {
+			build(args);
+		} else if (args.length >= 2 && args[0].equals("probe")) {
+			probe(args);
+		} else {
+			System.out.println("Uso: BookProgram build <arquivo.cga> <livro.bin> [-plies N] [-min N]");
+			System.out.println("     BookProgram probe <livro.bin> [fen]");
+		}
+	}
+
+	private static void build(String[] args) throws IOException {
+		int plies = 20;
+		int min = 1;
+		for (int i = 3; i + 1 < args.length; i += 2) {
+			if (args[i].equals("-plies")) {
+				plies = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("-min")) {
+				min = Integer.parseInt(args[i + 1]);
+			}
+		}
+		long inicio = System.nanoTime();
+		BookBuilder builder = new BookBuilder(plies, min);
+		try (GameArchive archive = new GameArchive(Paths.get(args[1]))) {
+			builder.add(archive);
+		}
+		Path saida = Paths.get(args[2]);
+		int entradas = builder.write(saida);
+		System.out.println("Posicoes : " + builder.positions());
+		System.out.println("Entradas : " + entradas);
+		System.out.println("Tempo : " + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+	}
+
+	private static void probe(String[] args) throws IOException {
+		StringBuilder fen = new StringBuilder();
+		for (int i = 2; i < args.length; i++) {
+			fen.append(args[i]).append(' ');
+		}
+		ChessMatch match;
+		try {
+			match = fen.length() == 0 ? new ChessMatch() : new ChessMatch(fen.toString());
+		} catch (ChessException e) {
+			System.out.println(e.getMessage());
+			return;
+		}
+		try (OpeningBook book = new OpeningBook(Paths.get(args[1]))) {
+			int[] moves = new int[Move.MAX_MOVES];
+			int[] weights = new int[Move.MAX_MOVES];
+			long inicio = System.nanoTime();
+			int n = book.probe(match.getHash(), moves, weights);
+			long tempo = System.nanoTime() - inicio;
+			for (int i = 0; i < n; i++) {
+				System.out.println(Move.toString(moves[i]) + " " + weights[i]);
+			}
+			System.out.println(n + " movimentos em " + tempo / 1000 + " us");
+		}
+	}
+}
@@ -0,0 +1,212 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import chess.ChessMatch;
+import chess.Move;
+import chess.MoveStatus;
+import chess.server.GameServer;
+import chess.server.VirtualThreads;
+
+/**
+ * Gerador de carga para o {@link GameServer}: abre varias conexoes, cada uma
+ * jogando varias partidas ao mesmo tempo com movimentos legais aleatorios, e
+ * mede a vazao e a latencia dos comandos move. Uso:
+ *
+ * <pre>
+ * LoadGeneratorProgram [-host endereco] [-port porta] [-c conexoes] [-m partidas] [-d segundos]
+ * </pre>
+ *
+ * Sem -port, um servidor e iniciado no proprio processo. -m e o numero de
+ * partidas por conexao.
+ *
+ * @author fsouviei
+ *
+ */
+public class LoadGeneratorProgram {
+
+	/**
+	 * Partidas sao encerradas e recriadas depois deste numero de meios-lances
+	 */
+	private static final int MAX_PLIES = 200;
+
+	public static void main(String[] args) throws Exception {
+		String host = "localhost";
+		int port = -1;
+		int conexoes = 16;
+		int partidas = 8;
+		int segundos = 10;
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			switch (args[i]) {
+			case "-host":
+				host = args[i + 1];
+				break;
+			case "-port":
+				port = Integer.parseInt(args[i + 1]);
+				break;
+			case "-c":
+				conexoes = Integer.parseInt(args[i + 1]);
+				break;
+			case "-m":
+				partidas = Integer.parseInt(args[i + 1]);
+				break;
+			case "-d":
+				segundos = Integer.parseInt(args[i + 1]);
+				break;
+			default:
+				System.out.println(
+						"Uso: LoadGeneratorProgram [-host endereco] [-port porta] [-c conexoes] [-m partidas] [-d segundos]");
+				return;
+			}
+		}
+
+		GameServer embutido = null;
+		if (port < 0) {
+			embutido = new GameServer(0);
+			embutido.start();
+			port = embutido.getPort();
+		}
+
+		long fim = System.nanoTime() + segundos * 1_000_000_000L;
+		List<Future<long[]>> tarefas = new ArrayList<>();
+		ExecutorService clientes = VirtualThreads.newThreadPerTaskExecutor("load-client");
+		long inicio = System.nanoTime();
+		for (int i = 0; i < conexoes; i++) {
+			String h = host;
+			int p = port;
+			int m = partidas;
+			tarefas.add(clientes.submit(() -> jogar(h, p, m, fim)));
+		}
+
+		long[][] porConexao = new long[conexoes][];
+		int total = 0;
+		for (int i = 0; i < conexoes; i++) {
+			try {
+				porConexao[i] = tarefas.get(i).get();
+			} catch (ExecutionException e) {
+				System.out.println("Falha em uma conexao: " + e.getCause());
+				porConexao[i] = new long[1];
+			}
+			total += (int) porConexao[i][0];
+		}
+		long tempo = System.nanoTime() - inicio;
+		clientes.shutdown();
+		if (embutido != null) {
+			embutido.close();
+		}
+
+		long[] latencias = new long[total];
+		int n = 0;
+		for (long[] l : porConexao) {
+			System.arraycopy(l, 1, latencias, n, (int) l[0]);
+			n += (int) l[0];
+		}
+		Arrays.sort(latencias);
+		System.out.println("Conexoes : " + conexoes + " | partidas simultaneas : " + conexoes * partidas
+				+ " | threads virtuais : " + (VirtualThreads.isAvailable() ? "sim" : "nao"));
+		System.out.println("Movimentos : " + total);
+		System.out.println("Movimentos/s : " + (tempo == 0 ? 0 : total * 1_000_000_000L / tempo));
+		if (total > 0) {
+			System.out.printf("Latencia (us) : p50 %d | p99 %d | max %d%n", percentil(latencias, 50) / 1000,
+					percentil(latencias, 99) / 1000, latencias[total - 1] / 1000);
+		}
+	}
+
+	private static long percentil(long[] ordenado, int p) {
+		return ordenado[Math.min(ordenado.length - 1, (int) ((long) ordenado.length * p / 100))];
+	}
+
+	/**
+	 * Uma conexao: joga as partidas em rodizio ate o prazo. Partidas que
+	 * terminam, por mate ou empate, sao fechadas e substituidas por novas
+	 *
+	 * @return latencias em nanossegundos; a posicao 0 guarda a quantidade
+	 */
+	private static long[] jogar(String host, int port, int partidas, long fim) throws IOException {
+		long[] latencias = new long[1024];
+		int n = 0;
+		try (Socket socket = new Socket(host, port);
+				BufferedReader in = new BufferedReader(
+						new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+				Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)) {
+			socket.setTcpNoDelay(true);
+			long[] ids = new long[partidas];
+			ChessMatch[] locais = new ChessMatch[partidas];
+			int[] plies = new int[partidas];
+			int[] moves = new int[Move.MAX_MOVES];
+			for (int i = 0; i < partidas; i++) {
+				ids[i] = criar(in, out);
+				locais[i] = new ChessMatch();
+			}
+			while (System.nanoTime() < fim) {
+				for (int i = 0; i < partidas; i++) {
+					// mate, afogamento, repeticao ou 50 lances encerram a partida local
+					int move = locais[i].getStatus().isOver() || plies[i] >= MAX_PLIES ? Move.NONE
+							: movimentoAleatorio(locais[i], moves);
+					boolean encerrada = move == Move.NONE;
+					if (!encerrada) {
+						long t = System.nanoTime();
+						String resposta = comando(in, out, "move " + ids[i] + " " + Move.toString(move));
+						long latencia = System.nanoTime() - t;
+						if (resposta.startsWith("ok")) {
+							locais[i].playMove(move);
+							plies[i]++;
+							if (++n == latencias.length) {
+								latencias = Arrays.copyOf(latencias, latencias.length * 2);
+							}
+							latencias[n] = latencia;
+						} else if (resposta.equals("error " + MoveStatus.GAME_OVER)) {
+							// o servidor ja deu a partida por encerrada: fim normal, nao falha
+							encerrada = true;
+						} else {
+							throw new IllegalStateException("Movimento rejeitado: " + resposta);
+						}
+					}
+					if (encerrada) {
+						comando(in, out, "close " + ids[i]);
+						ids[i] = criar(in, out);
+						locais[i] = new ChessMatch();
+						plies[i] = 0;
+					}
+				}
+			}
+			out.write("quit\n");
+			out.flush();
+		}
+		latencias[0] = n;
+		return latencias;
+	}
+
+	private static long criar(BufferedReader in, Writer out) throws IOException {
+		return Long.parseLong(comando(in, out, "create").substring(3));
+	}
+
+	private static String comando(BufferedReader in, Writer out, String line) throws IOException {
+		out.write(line);
+		out.write('\n');
+		out.flush();
+		return in.readLine();
+	}
+
+	/**
+	 * Movimento legal aleatorio da partida local, ou {@link Move#NONE} se nao
+	 * houver
+	 */
+	private static int movimentoAleatorio(ChessMatch match, int[] moves) {
+		int count = match.generateLegalMoves(moves);
+		return count == 0 ? Move.NONE : moves[ThreadLocalRandom.current().nextInt(count)];
+	}
+}
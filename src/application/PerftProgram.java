@@ -0,0 +1,67 @@
+package application;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Move;
+import chess.engine.Perft;
+
+/**
+ * Linha de comando do perft. Uso:
+ * 
+ * <pre>
+ * PerftProgram &lt;profundidade&gt; [-t threads] [fen]
+ * </pre>
+ * 
+ * Imprime a contagem de cada movimento da raiz (divide), o total de nos e a
+ * velocidade em nos por segundo.
+ * 
+ * @author fsouviei
+ *
+ */
+public class PerftProgram {
+
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("Uso: PerftProgram <profundidade> [-t threads] [fen]");
+			return;
+		}
+		int depth = Integer.parseInt(args[0]);
+		int threads = Runtime.getRuntime().availableProcessors();
+		StringBuilder fen = new StringBuilder();
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equals("-t") && i + 1 < args.length) {
+				threads = Integer.parseInt(args[++i]);
+			} else {
+				fen.append(args[i]).append(' ');
+			}
+		}
+
+		ChessMatch chessMatch;
+		try {
+			chessMatch = fen.length() == 0 ? new ChessMatch() : new ChessMatch(fen.toString());
+		} catch (ChessException e) {
+			System.out.println(e.getMessage());
+			return;
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		long inicio = System.nanoTime();
+		Map<Integer, Long> divide = Perft.divide(chessMatch, depth, pool);
+		long tempo = System.nanoTime() - inicio;
+		pool.shutdown();
+
+		long total = 0;
+		for (Map.Entry<Integer, Long> e : divide.entrySet()) {
+			System.out.println(Move.toString(e.getKey()) + ": " + e.getValue());
+			total += e.getValue();
+		}
+		System.out.println();
+		System.out.println("Nos : " + total);
+		System.out.println("Tempo : " + tempo / 1_000_000 + " ms");
+		System.out.println("Nos/s : " + (tempo == 0 ? 0 : total * 1_000_000_000L / tempo));
+		System.out.println("Threads : " + threads);
+	}
+}
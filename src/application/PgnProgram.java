@@ -0,0 +1,108 @@
+package application;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import chess.archive.GameArchive;
+import chess.archive.GameArchiveWriter;
+import chess.pgn.GameResult;
+import chess.pgn.PgnReplay;
+import chess.pgn.ReplaySummary;
+
+/**
+ * Importa um arquivo PGN reproduzindo todas as partidas pelas regras do jogo.
+ * Uso:
+ *
+ * <pre>
+ * PgnProgram &lt;arquivo.pgn&gt; [-t threads] [-v] [-o arquivo.cga]
+ * </pre>
+ *
+ * Imprime as partidas com lances invalidos (ou todas, com -v) e os totais da
+ * importacao. Com -o, as partidas validas sao gravadas no formato binario de
+ * {@link GameArchive}, na ordem do arquivo PGN.
+ *
+ * @author fsouviei
+ *
+ */
+public class PgnProgram {
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Uso: PgnProgram <arquivo.pgn> [-t threads] [-v] [-o arquivo.cga]");
+			return;
+		}
+		Path file = Paths.get(args[0]);
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean todas = false;
+		Path saida = null;
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equals("-t") && i + 1 < args.length) {
+				threads = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-v")) {
+				todas = true;
+			} else if (args[i].equals("-o") && i + 1 < args.length) {
+				saida = Paths.get(args[++i]);
+			}
+		}
+
+		boolean imprimirTodas = todas;
+		try (PgnReplay replay = new PgnReplay(threads);
+				GameArchiveWriter archive = saida == null ? null : new GameArchiveWriter(saida)) {
+			Gravacao gravacao = archive == null ? null : new Gravacao(archive);
+			ReplaySummary resumo = replay.replay(file, (GameResult result) -> {
+				if (imprimirTodas || !result.isValid()) {
+					synchronized (System.out) {
+						System.out.println(result);
+					}
+				}
+				if (gravacao != null) {
+					gravacao.receber(result);
+				}
+			});
+			System.out.println();
+			System.out.println(resumo);
+			System.out.println("Threads : " + threads);
+		}
+	}
+
+	/**
+	 * Grava as partidas validas na ordem do arquivo PGN, e nao na ordem em que as
+	 * threads terminam, para que a mesma entrada gere sempre os mesmos ids. Os
+	 * resultados que chegam adiantados esperam num mapa pelo indice que falta;
+	 * as partidas invalidas tambem passam por aqui para liberar a sequencia.
+	 */
+	private static final class Gravacao {
+
+		private final GameArchiveWriter archive;
+		private final Map<Long, GameResult> adiantados = new HashMap<>();
+		private long proximo;
+
+		Gravacao(GameArchiveWriter archive) {
+			this.archive = archive;
+		}
+
+		synchronized void receber(GameResult result) {
+			adiantados.put(result.getIndex(), result);
+			GameResult atual;
+			while ((atual = adiantados.remove(proximo)) != null) {
+				proximo++;
+				if (atual.isValid()) {
+					gravar(atual);
+				}
+			}
+		}
+
+		private void gravar(GameResult result) {
+			try {
+				archive.append(result.getMoves(), result.getPlies(), GameArchive.resultCode(result.getResult()),
+						result.getStartFen());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+}
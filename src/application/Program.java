@@ -9,16 +9,47 @@ import chess.ChessException;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.ChessPosition;
+import chess.Color;
+import chess.Move;
+import chess.PieceType;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
 
+/**
+ * Programa principal. Sem argumentos, dois jogadores humanos se alternam. Com
+ * "engine [profundidade]", o humano joga de brancas contra o computador, que
+ * pensa no maximo alguns segundos por jogada.
+ */
 public class Program {
+
+	private static final int PROFUNDIDADE_PADRAO = 5;
+	private static final long TEMPO_POR_JOGADA = 3000;
+
 	public static void main(String[] args) {
 
 		Scanner sc = new Scanner(System.in);
 		ChessMatch chessMatch = new ChessMatch();
 		List<ChessPiece> capturadas = new ArrayList<>();
+
+		Search engine = null;
+		int profundidade = PROFUNDIDADE_PADRAO;
+		if (args.length > 0 && args[0].equals("engine")) {
+			engine = new Search();
+			if (args.length > 1) {
+				profundidade = Integer.parseInt(args[1]);
+			}
+		}
 		
-		while (!chessMatch.getCheckMate()) {
+		while (!chessMatch.getStatus().isOver()) {
 			try {
+				if (engine != null && chessMatch.getJogadorAtual() == Color.BLACK) {
+					if (!jogadaDoComputador(chessMatch, engine, profundidade, capturadas)) {
+						System.out.println("O computador nao tem movimentos legais");
+						break;
+					}
+					continue;
+				}
 				UI.clearScreen();
 				UI.imprimirPartida(chessMatch, capturadas);
 				System.out.println();
@@ -57,4 +88,32 @@ public class Program {
 		UI.clearScreen();
 		UI.imprimirPartida(chessMatch, capturadas);
 	}
+
+	/**
+	 * Busca e executa o movimento do computador pelas mesmas regras da jogada
+	 * humana
+	 * 
+	 * @return false se o computador nao tiver movimento legal
+	 */
+	private static boolean jogadaDoComputador(ChessMatch chessMatch, Search engine, int profundidade,
+			List<ChessPiece> capturadas) {
+		SearchLimits limites = new SearchLimits().setDepth(profundidade).setMoveTime(TEMPO_POR_JOGADA);
+		SearchResult resultado = engine.search(chessMatch, limites);
+		int move = resultado.getMove();
+		if (move == Move.NONE) {
+			return false;
+		}
+		String notacao = Move.toString(move);
+		ChessPosition source = new ChessPosition(notacao.charAt(0), notacao.charAt(1) - '0');
+		ChessPosition target = new ChessPosition(notacao.charAt(2), notacao.charAt(3) - '0');
+		ChessPiece capturedPiece = chessMatch.executarMovimentoXadrez(source, target);
+		if (capturedPiece != null) {
+			capturadas.add(capturedPiece);
+		}
+		PieceType promocao = Move.promotion(move);
+		if (chessMatch.getPromoted() != null && promocao != null) {
+			chessMatch.replacePromotedPiece(notacao.substring(4).toUpperCase());
+		}
+		return true;
+	}
 }
@@ -0,0 +1,49 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import chess.book.OpeningBook;
+import chess.server.GameServer;
+import chess.server.VirtualThreads;
+
+/**
+ * Inicia o servidor de partidas. Uso:
+ *
+ * <pre>
+ * ServerProgram [porta] [-book livro.bin] [-searchers N]
+ * </pre>
+ *
+ * O protocolo esta descrito em {@link GameServer}. -searchers define quantas
+ * buscas o comando go pode fazer ao mesmo tempo (padrao: uma por processador).
+ *
+ * @author fsouviei
+ *
+ */
+public class ServerProgram {
+
+	private static final int PORTA_PADRAO = 7777;
+
+	public static void main(String[] args) throws IOException {
+		int port = PORTA_PADRAO;
+		Path livro = null;
+		int buscadores = Runtime.getRuntime().availableProcessors();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-book") && i + 1 < args.length) {
+				livro = Paths.get(args[++i]);
+			} else if (args[i].equals("-searchers") && i + 1 < args.length) {
+				buscadores = Integer.parseInt(args[++i]);
+			} else {
+				port = Integer.parseInt(args[i]);
+			}
+		}
+		try (OpeningBook book = livro == null ? null : new OpeningBook(livro);
+				GameServer server = new GameServer(port, book, buscadores)) {
+			System.out.println("Servidor na porta " + server.getPort() + " (threads virtuais: "
+					+ (VirtualThreads.isAvailable() ? "sim" : "nao") + ", livro: " + (book == null ? "nao" : "sim")
+					+ ")");
+			server.serve();
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package application;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.engine.ParallelSearch;
+import chess.engine.SearchResult;
+
+/**
+ * Mede o ganho da busca paralela: busca a mesma posicao com 1 thread e com N
+ * threads e compara o tempo ate a profundidade. Uso:
+ * 
+ * <pre>
+ * SmpProgram &lt;profundidade&gt; [-t threads] [-hash MB] [fen]
+ * </pre>
+ * 
+ * @author fsouviei
+ *
+ */
+public class SmpProgram {
+
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("Uso: SmpProgram <profundidade> [-t threads] [-hash MB] [fen]");
+			return;
+		}
+		int depth = Integer.parseInt(args[0]);
+		int threads = Runtime.getRuntime().availableProcessors();
+		int hash = 64;
+		StringBuilder fen = new StringBuilder();
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equals("-t") && i + 1 < args.length) {
+				threads = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-hash") && i + 1 < args.length) {
+				hash = Integer.parseInt(args[++i]);
+			} else {
+				fen.append(args[i]).append(' ');
+			}
+		}
+
+		ChessMatch chessMatch;
+		try {
+			chessMatch = fen.length() == 0 ? new ChessMatch() : new ChessMatch(fen.toString());
+		} catch (ChessException e) {
+			System.out.println(e.getMessage());
+			return;
+		}
+
+		long base = medir(chessMatch, depth, 1, hash);
+		if (threads > 1) {
+			long paralelo = medir(chessMatch, depth, threads, hash);
+			System.out.printf("Speedup : %.2fx%n", paralelo == 0 ? 0.0 : (double) base / paralelo);
+		}
+	}
+
+	private static long medir(ChessMatch chessMatch, int depth, int threads, int hash) {
+		try (ParallelSearch search = new ParallelSearch(threads, hash)) {
+			long inicio = System.nanoTime();
+			SearchResult resultado = search.search(chessMatch, depth, Long.MAX_VALUE);
+			long tempo = System.nanoTime() - inicio;
+			System.out.println("Threads : " + threads + " | " + resultado + " | " + tempo / 1_000_000 + " ms | "
+					+ (tempo == 0 ? 0 : resultado.getNodes() * 1_000_000_000L / tempo) + " nos/s");
+			return tempo;
+		}
+	}
+}
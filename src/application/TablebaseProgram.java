@@ -0,0 +1,130 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Move;
+import chess.tablebase.Material;
+import chess.tablebase.Tablebase;
+import chess.tablebase.TablebaseGenerator;
+import chess.tablebase.Tablebases;
+
+/**
+ * Gera e consulta tabelas de finais. Uso:
+ *
+ * <pre>
+ * TablebaseProgram generate &lt;diretorio&gt; &lt;material&gt;... [-threads N]
+ * TablebaseProgram probe &lt;diretorio&gt; &lt;fen&gt;
+ * </pre>
+ *
+ * A material e escrita como KQvK, KRvK, KPvK, KBNvK... ou sem o "v" (KQK,
+ * KBNK). As tabelas das materiais menores alcancaveis por captura ou promocao
+ * sao geradas junto; as que ja estiverem no diretorio sao reaproveitadas.
+ *
+ * @author fsouviei
+ *
+ */
+public class TablebaseProgram {
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length >= 3 && args[0].equals("generate")) {
+			generate(args);
+		} else if (args.length >= 3 && args[0].equals("probe")) {
+			probe(args);
+		} else {
+			uso();
+		}
+	}
+
+	private static void uso() {
+		System.out.println("Uso: TablebaseProgram generate <diretorio> <material>... [-threads N]");
+		System.out.println("     TablebaseProgram probe <diretorio> <fen>");
+	}
+
+	private static void generate(String[] args) throws IOException, InterruptedException {
+		Path dir = Paths.get(args[1]);
+		int threads = Runtime.getRuntime().availableProcessors();
+		List<Material> materiais = new ArrayList<>();
+		// argumentos lidos antes de gerar, para nao falhar no meio de uma geracao
+		try {
+			for (int i = 2; i < args.length; i++) {
+				if (args[i].equals("-threads") && i + 1 < args.length) {
+					threads = Integer.parseInt(args[++i]);
+				} else {
+					materiais.add(Material.parse(args[i]));
+				}
+			}
+			if (threads < 1) {
+				throw new NumberFormatException();
+			}
+		} catch (NumberFormatException e) {
+			System.out.println("Numero de threads invalido");
+			uso();
+			return;
+		} catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+			uso();
+			return;
+		}
+		Files.createDirectories(dir);
+		try (TablebaseGenerator generator = new TablebaseGenerator(threads)) {
+			for (Tablebase t : new Tablebases(dir).getTables()) {
+				generator.add(t);
+			}
+			long[] inicio = { System.nanoTime() };
+			generator.setListener(t -> {
+				try {
+					t.write(dir.resolve(t.getMaterial() + Tablebases.EXTENSION));
+				} catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+				System.out.printf("%-8s %,12d posicoes  DTM max %3d plies  %2d bits  %,10d bytes  %6d ms%n",
+						t.getMaterial(), t.getMaterial().size(), t.getMaxPlies(), t.getBits(), t.byteSize(),
+						(System.nanoTime() - inicio[0]) / 1_000_000);
+				inicio[0] = System.nanoTime();
+			});
+			for (Material material : materiais) {
+				generator.generate(material);
+			}
+		}
+	}
+
+	private static void probe(String[] args) throws IOException {
+		StringBuilder fen = new StringBuilder();
+		for (int i = 2; i < args.length; i++) {
+			fen.append(args[i]).append(' ');
+		}
+		ChessMatch match;
+		try {
+			match = new ChessMatch(fen.toString());
+		} catch (ChessException e) {
+			System.out.println(e.getMessage());
+			return;
+		}
+		Tablebases tablebases = new Tablebases(Paths.get(args[1]));
+		long inicio = System.nanoTime();
+		int score = tablebases.probe(match);
+		long tempo = System.nanoTime() - inicio;
+		if (score == Tablebases.UNKNOWN) {
+			System.out.println("Posicao fora das tabelas");
+			return;
+		}
+		if (score == 0) {
+			System.out.println("Empate");
+		} else {
+			System.out.println((score > 0 ? "Vitoria" : "Derrota") + " em " + Tablebases.plies(score)
+					+ " meios-lances");
+		}
+		int move = tablebases.bestMove(match);
+		if (move != Move.NONE) {
+			System.out.println("Melhor movimento: " + Move.toString(move));
+		}
+		System.out.println("Consulta: " + tempo / 1000 + " us");
+	}
+}
@@ -71,12 +71,15 @@ public class UI {
 		System.out.println();
 		imprimirPecasCapturadas(capturadas);
 		System.out.println("Turno : " + chessMatch.getTurno());
-		if(!chessMatch.getCheckMate()) {
+		if(!chessMatch.getStatus().isOver()) {
 			System.out.println("Esperando jogador : " + chessMatch.getJogadorAtual());
 			testImprimirCheck(chessMatch);
-		}else {
+		}else if(chessMatch.getCheckMate()) {
 			System.out.println("CHECKMATE!");
-			System.out.println("Vencedor : "+ chessMatch.getJogadorAtual());
+			System.out.println("Vencedor : "+ chessMatch.getVencedor());
+		}else {
+			System.out.println("EMPATE!");
+			System.out.println(chessMatch.getStatus().getMessage());
 		}
 	}
 
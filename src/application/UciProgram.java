@@ -0,0 +1,333 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Move;
+import chess.SequenceValidation;
+import chess.book.OpeningBook;
+import chess.engine.ParallelSearch;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.tablebase.Tablebases;
+
+/**
+ * Interface UCI (Universal Chess Interface) do motor pela entrada e saida
+ * padrao, para uso com gerenciadores de torneio e partidas entre motores.
+ * Comandos suportados: uci, isready, setoption (Hash, Threads, BookFile,
+ * TablebasePath), ucinewgame, position startpos|fen ... [moves ...],
+ * go [depth|movetime|wtime|btime|winc|binc|movestogo|nodes|infinite], stop e
+ * quit.
+ *
+ * A busca roda em uma thread propria para que stop possa ser lido durante a
+ * busca; cada iteracao completa e informada em uma linha info. Com um livro de
+ * aberturas configurado, posicoes do livro sao respondidas sem busca; com
+ * tabelas de finais, a busca joga as posicoes cobertas por elas sem erro.
+ *
+ * @author fsouviei
+ *
+ */
+public class UciProgram {
+
+	private static final String NOME = "chess-system-java";
+
+	private final PrintStream out;
+	private int hash = 64;
+	private int threads = 1;
+	private ParallelSearch search;
+	private ChessMatch posicao = new ChessMatch();
+	private OpeningBook book;
+	private Tablebases tablebases;
+	private Thread busca;
+
+	public UciProgram(PrintStream out) {
+		this.out = out;
+	}
+
+	public static void main(String[] args) throws IOException {
+		UciProgram uci = new UciProgram(System.out);
+		BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+		String line;
+		while ((line = in.readLine()) != null) {
+			if (!uci.comando(line.trim())) {
+				break;
+			}
+		}
+		uci.pararBusca();
+		uci.fecharBusca();
+	}
+
+	/**
+	 * Executa um comando
+	 *
+	 * @param line
+	 * @return false quando o comando for quit
+	 */
+	boolean comando(String line) {
+		String[] campos = line.split("\\s+");
+		switch (campos[0]) {
+		case "uci":
+			responder("id name " + NOME);
+			responder("id author fsouviei");
+			responder("option name Hash type spin default 64 min 1 max 4096");
+			responder("option name Threads type spin default 1 min 1 max 256");
+			responder("option name BookFile type string default <empty>");
+			responder("option name TablebasePath type string default <empty>");
+			responder("uciok");
+			break;
+		case "isready":
+			responder("readyok");
+			break;
+		case "setoption":
+			setOption(campos);
+			break;
+		case "ucinewgame":
+			pararBusca();
+			if (search != null) {
+				search.getTranspositionTable().clear();
+			}
+			posicao = new ChessMatch();
+			break;
+		case "position":
+			pararBusca();
+			position(campos);
+			break;
+		case "go":
+			pararBusca();
+			go(campos);
+			break;
+		case "stop":
+			pararBusca();
+			break;
+		case "quit":
+			return false;
+		default:
+			if (!campos[0].isEmpty()) {
+				responder("info string comando desconhecido: " + campos[0]);
+			}
+		}
+		return true;
+	}
+
+	private void setOption(String[] campos) {
+		// setoption name <nome> value <valor>
+		if (campos.length < 5 || !campos[1].equals("name") || !campos[3].equals("value")) {
+			return;
+		}
+		if (campos[2].equalsIgnoreCase("BookFile")) {
+			abrirLivro(String.join(" ", Arrays.copyOfRange(campos, 4, campos.length)));
+			return;
+		}
+		if (campos[2].equalsIgnoreCase("TablebasePath")) {
+			abrirTabelas(String.join(" ", Arrays.copyOfRange(campos, 4, campos.length)));
+			return;
+		}
+		try {
+			int valor = Integer.parseInt(campos[4]);
+			if (campos[2].equalsIgnoreCase("Hash")) {
+				hash = Math.max(1, valor);
+			} else if (campos[2].equalsIgnoreCase("Threads")) {
+				threads = Math.max(1, valor);
+			} else {
+				return;
+			}
+		} catch (NumberFormatException e) {
+			return;
+		}
+		pararBusca();
+		fecharBusca();
+	}
+
+	private void abrirLivro(String arquivo) {
+		pararBusca();
+		try {
+			if (book != null) {
+				book.close();
+				book = null;
+			}
+			if (!arquivo.equals("<empty>")) {
+				book = new OpeningBook(Paths.get(arquivo));
+			}
+		} catch (IOException e) {
+			responder("info string livro invalido: " + e.getMessage());
+		}
+	}
+
+	private void abrirTabelas(String dir) {
+		pararBusca();
+		tablebases = null;
+		try {
+			if (!dir.equals("<empty>")) {
+				tablebases = new Tablebases(Paths.get(dir));
+				responder("info string " + tablebases.getTables().size() + " tabelas de finais");
+			}
+		} catch (IOException e) {
+			responder("info string tabelas de finais invalidas: " + e.getMessage());
+		}
+		if (search != null) {
+			search.setTablebases(tablebases);
+		}
+	}
+
+	private void position(String[] campos) {
+		int i = 1;
+		ChessMatch match;
+		try {
+			if (campos.length > 1 && campos[1].equals("fen")) {
+				StringBuilder fen = new StringBuilder();
+				for (i = 2; i < campos.length && !campos[i].equals("moves"); i++) {
+					fen.append(campos[i]).append(' ');
+				}
+				match = new ChessMatch(fen.toString());
+			} else {
+				match = new ChessMatch();
+				i = 2;
+			}
+		} catch (ChessException e) {
+			responder("info string FEN invalido: " + e.getMessage());
+			return;
+		}
+		if (i < campos.length && campos[i].equals("moves")) {
+			int[] moves = new int[campos.length - i - 1];
+			for (int j = 0; j < moves.length; j++) {
+				moves[j] = Move.parse(campos[i + 1 + j]);
+			}
+			SequenceValidation validacao = match.validateSequence(moves, moves.length, true);
+			if (!validacao.isValid()) {
+				responder("info string movimento invalido " + campos[i + 1 + validacao.getValidMoves()] + ": "
+						+ validacao.getStatus());
+			}
+		}
+		posicao = match;
+	}
+
+	private void go(String[] campos) {
+		SearchLimits limits = new SearchLimits();
+		long wtime = 0;
+		long btime = 0;
+		long winc = 0;
+		long binc = 0;
+		for (int i = 1; i + 1 < campos.length; i++) {
+			long valor;
+			try {
+				valor = Long.parseLong(campos[i + 1]);
+			} catch (NumberFormatException e) {
+				continue;
+			}
+			switch (campos[i]) {
+			case "depth":
+				limits.setDepth((int) valor);
+				break;
+			case "movetime":
+				limits.setMoveTime(valor);
+				break;
+			case "nodes":
+				limits.setNodes(valor);
+				break;
+			case "movestogo":
+				limits.setMovesToGo((int) valor);
+				break;
+			case "wtime":
+				wtime = valor;
+				break;
+			case "btime":
+				btime = valor;
+				break;
+			case "winc":
+				winc = valor;
+				break;
+			case "binc":
+				binc = valor;
+				break;
+			default:
+				continue;
+			}
+			i++;
+		}
+		limits.setClock(wtime, btime).setIncrement(winc, binc);
+
+		if (book != null) {
+			int move = book.move(posicao, true);
+			if (move != Move.NONE) {
+				responder("info string book");
+				responder("bestmove " + Move.toString(move));
+				return;
+			}
+		}
+
+		ParallelSearch engine = engine();
+		ChessMatch match = posicao;
+		busca = new Thread(() -> {
+			SearchResult resultado = engine.search(match, limits);
+			responder("bestmove " + (resultado.getMove() == Move.NONE ? "0000" : Move.toString(resultado.getMove())));
+		}, "uci-search");
+		busca.start();
+	}
+
+	private ParallelSearch engine() {
+		if (search == null) {
+			search = new ParallelSearch(threads, hash);
+			search.setListener(this::info);
+			search.setTablebases(tablebases);
+		}
+		return search;
+	}
+
+	/**
+	 * Linha info de uma iteracao completa
+	 */
+	private void info(SearchResult r) {
+		StringBuilder sb = new StringBuilder("info depth ").append(r.getDepth()).append(" score ");
+		if (r.isMate()) {
+			int plies = Search.MATE - Math.abs(r.getScore());
+			sb.append("mate ").append(r.getScore() > 0 ? (plies + 1) / 2 : -(plies + 1) / 2);
+		} else {
+			sb.append("cp ").append(r.getScore());
+		}
+		sb.append(" nodes ").append(r.getNodes());
+		sb.append(" nps ").append(r.getTimeMillis() == 0 ? r.getNodes() * 1000 : r.getNodes() * 1000 / r.getTimeMillis());
+		sb.append(" time ").append(r.getTimeMillis());
+		sb.append(" pv");
+		for (int move : r.getPv()) {
+			sb.append(' ').append(Move.toString(move));
+		}
+		responder(sb.toString());
+	}
+
+	/**
+	 * Interrompe a busca em andamento e espera o bestmove ser escrito
+	 */
+	private void pararBusca() {
+		if (busca == null) {
+			return;
+		}
+		search.stop();
+		try {
+			busca.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		busca = null;
+	}
+
+	private void fecharBusca() {
+		if (search != null) {
+			search.close();
+			search = null;
+		}
+	}
+
+	private void responder(String line) {
+		synchronized (out) {
+			out.println(line);
+			out.flush();
+		}
+	}
+}
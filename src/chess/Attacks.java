@@ -0,0 +1,247 @@
+package chess;
+
+/**
+ * Tabelas de ataque pre-calculadas. Para as pecas deslizantes (torre, bispo e
+ * dama) sao usados "magic bitboards": o conjunto de ataque de uma peca e obtido
+ * com uma unica consulta na tabela, indexada pela ocupacao relevante do
+ * tabuleiro. Cavalo, rei e peao usam uma tabela simples por casa.
+ *
+ * As casas seguem a numeracao de {@link ChessBoard}: row * 8 + column. As
+ * magicas foram encontradas por busca aleatoria para essa numeracao e nao
+ * servem para a numeracao usual com a1 = 0.
+ *
+ * @author fsouviei
+ *
+ */
+public final class Attacks {
+
+	private static final int[][] DIRECOES_TORRE = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+	private static final int[][] DIRECOES_BISPO = { { -1, -1 }, { -1, 1 }, { 1, -1 }, { 1, 1 } };
+	private static final int[][] SALTOS_CAVALO = { { -1, -2 }, { -2, -1 }, { -2, 1 }, { -1, 2 }, { 1, 2 }, { 2, 1 },
+			{ 2, -1 }, { 1, -2 } };
+	private static final int[][] PASSOS_REI = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 }, { -1, -1 }, { -1, 1 },
+			{ 1, -1 }, { 1, 1 } };
+
+	private static final long[] KNIGHT = new long[64];
+	private static final long[] KING = new long[64];
+	private static final long[][] PAWN = new long[2][64];
+
+	private static final long[] ROOK_MASKS = new long[64];
+	private static final long[] ROOK_MAGICS = {
+			0x1080004008801020L, 0x0840092002C03000L, 0x1900200010400900L, 0x0880100008000480L,
+			0x4200100420080200L, 0x8100020100080400L, 0x0200040110886200L, 0x0200008040220411L,
+			0x0404800084400220L, 0x0000401000402000L, 0x0086001081220440L, 0x0408800800100280L,
+			0x000A001201040820L, 0x8848800200840080L, 0x4001000100040200L, 0x0442000102105084L,
+			0x9080010020804100L, 0x0040404000201009L, 0x0000808010002009L, 0x2200090021D00100L,
+			0x0008008008040080L, 0x0004004002010040L, 0x0011040008015042L, 0x00000A0001768104L,
+			0x0000800080204009L, 0x2010004140002001L, 0x9800200280100080L, 0x1000100080080080L,
+			0x0442000A00049020L, 0x2100040080020080L, 0x0800120400900148L, 0x0010040A00128541L,
+			0x2800804000800030L, 0x1010002000400041L, 0x4000200011004100L, 0x0610008410800800L,
+			0x0400802402800800L, 0xC100020080800400L, 0x0002000802000401L, 0x0182085882000401L,
+			0x0220204000808000L, 0x2860100040024022L, 0x0001002004110040L, 0x99101042000A0020L,
+			0x0004080004008080L, 0x0010040002008080L, 0x2012004881020004L, 0x8300842444820011L,
+			0x0088403882010200L, 0x0820400080210100L, 0x0110910040A00300L, 0x0801100280080480L,
+			0x0242009008200600L, 0x1002000489500200L, 0x0040800200010080L, 0x0091800041000080L,
+			0x0000209300488001L, 0x04C1002414824001L, 0x020020000B001041L, 0x7000100004200901L,
+			0x8002002004100802L, 0x30010002084C0007L, 0x0888221800813004L, 0x4000002840840112L
+	};
+	private static final int[] ROOK_SHIFTS = new int[64];
+	private static final int[] ROOK_OFFSETS = new int[64];
+	private static final long[] ROOK_TABLE;
+
+	private static final long[] BISHOP_MASKS = new long[64];
+	private static final long[] BISHOP_MAGICS = {
+			0xA010041108003100L, 0x006082020A002900L, 0x6810010619200000L, 0x08281A0520000408L,
+			0x0001104001000400L, 0x0018901008048400L, 0x00040A0210245280L, 0x000200210808A402L,
+			0x9140048410821200L, 0x0800091010820041L, 0x20504804832202C0L, 0x0100091401081000L,
+			0x8021011140000012L, 0x0810020804450400L, 0x208B0542109008A2L, 0x0080084A08040204L,
+			0x0040E2A80811244CL, 0x2505022008008108L, 0x0430220100420040L, 0x010A040420220040L,
+			0x1105000290400000L, 0x0093001200822120L, 0x4000A62048043004L, 0x280120048A015004L,
+			0x006090002A020814L, 0x44042000240800D0L, 0x01102800040A4400L, 0x1004080080220040L,
+			0x0001001011004024L, 0x0010044000805040L, 0x0914041200820100L, 0x0004821012821480L,
+			0x0024040500C05021L, 0x0088611002080200L, 0x0116080A00040020L, 0x4000020080080080L,
+			0x2450450140840040L, 0x0000880201484100L, 0x0222020404020092L, 0x8081110600002E00L,
+			0x2842101105000801L, 0x1100809008001025L, 0x00020202221C0400L, 0x0422014022009020L,
+			0x0210046102100C00L, 0xC004008082029102L, 0x00AA461801101200L, 0x0404080080201108L,
+			0x020542108C205002L, 0x0410544804100100L, 0x0040910841100000L, 0x0400200042021100L,
+			0x00004204850400C0L, 0x0200100410A42102L, 0x1040020801210102L, 0x0805040410420000L,
+			0x2884804130100200L, 0x800C262201242000L, 0x1058000194108800L, 0x0014221054420204L,
+			0x0104000012A02200L, 0x0200881003300100L, 0x0140400202840100L, 0x0402020801010201L
+	};
+	private static final int[] BISHOP_SHIFTS = new int[64];
+	private static final int[] BISHOP_OFFSETS = new int[64];
+	private static final long[] BISHOP_TABLE;
+
+	private static final long[][] BETWEEN = new long[64][64];
+
+	static {
+		ROOK_TABLE = inicializar(DIRECOES_TORRE, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS);
+		BISHOP_TABLE = inicializar(DIRECOES_BISPO, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+		for (int sq = 0; sq < 64; sq++) {
+			KNIGHT[sq] = saltos(sq, SALTOS_CAVALO);
+			KING[sq] = saltos(sq, PASSOS_REI);
+			PAWN[Color.WHITE.ordinal()][sq] = saltos(sq, new int[][] { { -1, -1 }, { -1, 1 } });
+			PAWN[Color.BLACK.ordinal()][sq] = saltos(sq, new int[][] { { 1, -1 }, { 1, 1 } });
+		}
+		for (int a = 0; a < 64; a++) {
+			for (int b = 0; b < 64; b++) {
+				int dr = ChessBoard.row(b) - ChessBoard.row(a);
+				int dc = ChessBoard.column(b) - ChessBoard.column(a);
+				if (a == b) {
+					continue;
+				}
+				if (dr == 0 || dc == 0) {
+					BETWEEN[a][b] = rook(a, 1L << b) & rook(b, 1L << a);
+				} else if (Math.abs(dr) == Math.abs(dc)) {
+					BETWEEN[a][b] = bishop(a, 1L << b) & bishop(b, 1L << a);
+				}
+			}
+		}
+	}
+
+	private Attacks() {
+	}
+
+	/**
+	 * Casas atacadas por uma torre na casa informada
+	 *
+	 * @param square
+	 * @param occupancy - ocupacao total do tabuleiro
+	 * @return
+	 */
+	public static long rook(int square, long occupancy) {
+		long indice = ((occupancy & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square];
+		return ROOK_TABLE[ROOK_OFFSETS[square] + (int) indice];
+	}
+
+	/**
+	 * Casas atacadas por um bispo na casa informada
+	 *
+	 * @param square
+	 * @param occupancy - ocupacao total do tabuleiro
+	 * @return
+	 */
+	public static long bishop(int square, long occupancy) {
+		long indice = ((occupancy & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square];
+		return BISHOP_TABLE[BISHOP_OFFSETS[square] + (int) indice];
+	}
+
+	public static long queen(int square, long occupancy) {
+		return rook(square, occupancy) | bishop(square, occupancy);
+	}
+
+	public static long knight(int square) {
+		return KNIGHT[square];
+	}
+
+	public static long king(int square) {
+		return KING[square];
+	}
+
+	/**
+	 * Casas estritamente entre duas casas da mesma linha, coluna ou diagonal; 0
+	 * se nao estiverem alinhadas
+	 *
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public static long between(int a, int b) {
+		return BETWEEN[a][b];
+	}
+
+	/**
+	 * Casas atacadas (capturas diagonais) por um peao da cor informada
+	 *
+	 * @param color
+	 * @param square
+	 * @return
+	 */
+	public static long pawn(Color color, int square) {
+		return PAWN[color.ordinal()][square];
+	}
+
+	/**
+	 * Calcula as mascaras e preenche a tabela de ataques de um tipo de peca
+	 * deslizante. Cada casa ocupa 2^bits entradas consecutivas da tabela.
+	 */
+	private static long[] inicializar(int[][] direcoes, long[] masks, long[] magics, int[] shifts, int[] offsets) {
+		int total = 0;
+		for (int sq = 0; sq < 64; sq++) {
+			masks[sq] = mascaraRelevante(sq, direcoes);
+			int bits = Long.bitCount(masks[sq]);
+			shifts[sq] = 64 - bits;
+			offsets[sq] = total;
+			total += 1 << bits;
+		}
+		long[] table = new long[total];
+		for (int sq = 0; sq < 64; sq++) {
+			// enumera todos os subconjuntos da mascara (carry-rippler)
+			long sub = 0;
+			do {
+				int idx = offsets[sq] + (int) ((sub * magics[sq]) >>> shifts[sq]);
+				table[idx] = ataquesPorRaio(sq, sub, direcoes);
+				sub = (sub - masks[sq]) & masks[sq];
+			} while (sub != 0);
+		}
+		return table;
+	}
+
+	/**
+	 * Mascara das casas que podem bloquear a peca, sem as bordas do tabuleiro
+	 */
+	private static long mascaraRelevante(int square, int[][] direcoes) {
+		long mask = 0;
+		int row = ChessBoard.row(square);
+		int column = ChessBoard.column(square);
+		for (int[] d : direcoes) {
+			int r = row + d[0];
+			int c = column + d[1];
+			while (r + d[0] >= 0 && r + d[0] < 8 && c + d[1] >= 0 && c + d[1] < 8) {
+				mask |= 1L << ChessBoard.square(r, c);
+				r += d[0];
+				c += d[1];
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Casas alcancadas por um conjunto fixo de deslocamentos
+	 */
+	private static long saltos(int square, int[][] deslocamentos) {
+		long ataques = 0;
+		for (int[] d : deslocamentos) {
+			int r = ChessBoard.row(square) + d[0];
+			int c = ChessBoard.column(square) + d[1];
+			if (r >= 0 && r < 8 && c >= 0 && c < 8) {
+				ataques |= 1L << ChessBoard.square(r, c);
+			}
+		}
+		return ataques;
+	}
+
+	/**
+	 * Calculo lento dos ataques, percorrendo cada raio. Usado apenas para
+	 * preencher as tabelas.
+	 */
+	private static long ataquesPorRaio(int square, long occupancy, int[][] direcoes) {
+		long ataques = 0;
+		int row = ChessBoard.row(square);
+		int column = ChessBoard.column(square);
+		for (int[] d : direcoes) {
+			int r = row + d[0];
+			int c = column + d[1];
+			while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+				long bit = 1L << ChessBoard.square(r, c);
+				ataques |= bit;
+				if ((occupancy & bit) != 0) {
+					break;
+				}
+				r += d[0];
+				c += d[1];
+			}
+		}
+		return ataques;
+	}
+}
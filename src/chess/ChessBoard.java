@@ -0,0 +1,232 @@
+package chess;
+
+import boardgame.Board;
+import boardgame.BoardException;
+import boardgame.Piece;
+import boardgame.Position;
+
+/**
+ * Tabuleiro de xadrez baseado em bitboards. Mantem uma palavra de 64 bits por
+ * tipo e cor de peca, mais as palavras de ocupacao, sincronizadas com a matriz
+ * de pecas do {@link Board}. O bit de uma casa e row * 8 + column (a8 = 0, h1 =
+ * 63).
+ * 
+ * @author fsouviei
+ *
+ */
+public class ChessBoard extends Board {
+
+	private long[] bitboards = new long[12];
+	private long[] ocupacaoCor = new long[2];
+	private long ocupacao;
+	private long chave;
+	private int[] meioJogo = new int[2];
+	private int[] finalJogo = new int[2];
+	private int fase;
+	private Position[] posicoes = new Position[64];
+
+	public ChessBoard() {
+		super(8, 8);
+		for (int sq = 0; sq < 64; sq++) {
+			posicoes[sq] = new Position(row(sq), column(sq));
+		}
+	}
+
+	/**
+	 * Converte uma posicao da matriz para o indice da casa no bitboard
+	 * 
+	 * @param position
+	 * @return
+	 */
+	public static int square(Position position) {
+		return position.getRow() * 8 + position.getColumn();
+	}
+
+	/**
+	 * Posicao da casa informada. As instancias sao compartilhadas pelo tabuleiro
+	 * para que mover pecas nao aloque memoria; nao devem ser alteradas.
+	 * 
+	 * @param square
+	 * @return
+	 */
+	public Position position(int square) {
+		return posicoes[square];
+	}
+
+	public static int square(int row, int column) {
+		return row * 8 + column;
+	}
+
+	public static int row(int square) {
+		return square >>> 3;
+	}
+
+	public static int column(int square) {
+		return square & 7;
+	}
+
+	private static int indice(Color color, PieceType type) {
+		return color.ordinal() * 6 + type.ordinal();
+	}
+
+	public long pieces(Color color, PieceType type) {
+		return bitboards[indice(color, type)];
+	}
+
+	public long occupancy(Color color) {
+		return ocupacaoCor[color.ordinal()];
+	}
+
+	public long occupancy() {
+		return ocupacao;
+	}
+
+	/**
+	 * Parte do hash de Zobrist referente as pecas, atualizada a cada peca
+	 * colocada ou removida
+	 * 
+	 * @return
+	 */
+	public long getKey() {
+		return chave;
+	}
+
+	/**
+	 * Soma de material e tabela peca-casa de meio-jogo das pecas da cor
+	 * informada, atualizada a cada peca colocada ou removida
+	 * 
+	 * @param color
+	 * @return
+	 */
+	public int middlegameScore(Color color) {
+		return meioJogo[color.ordinal()];
+	}
+
+	public int endgameScore(Color color) {
+		return finalJogo[color.ordinal()];
+	}
+
+	/**
+	 * Fase de jogo pelo material restante: {@link PieceSquareTables#MAX_PHASE}
+	 * com todas as pecas, 0 com apenas reis e peoes. Promocoes podem ultrapassar o
+	 * maximo.
+	 * 
+	 * @return
+	 */
+	public int phase() {
+		return fase;
+	}
+
+	/**
+	 * Casa do rei da cor informada, ou -1 se nao houver rei no tabuleiro
+	 * 
+	 * @param color
+	 * @return
+	 */
+	public int kingSquare(Color color) {
+		long king = pieces(color, PieceType.KING);
+		return king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+	}
+
+	/**
+	 * Verifica se a casa e atacada por alguma peca da cor informada. A consulta e
+	 * feita a partir da casa alvo: um ataque de cada tipo de peca sobreposto aos
+	 * bitboards das pecas atacantes.
+	 * 
+	 * @param square
+	 * @param by - cor das pecas atacantes
+	 * @return
+	 */
+	public boolean isAttacked(int square, Color by) {
+		Color alvo = (by == Color.WHITE) ? Color.BLACK : Color.WHITE;
+		if ((Attacks.pawn(alvo, square) & pieces(by, PieceType.PAWN)) != 0) {
+			return true;
+		}
+		if ((Attacks.knight(square) & pieces(by, PieceType.KNIGHT)) != 0) {
+			return true;
+		}
+		if ((Attacks.king(square) & pieces(by, PieceType.KING)) != 0) {
+			return true;
+		}
+		long damas = pieces(by, PieceType.QUEEN);
+		if ((Attacks.bishop(square, ocupacao) & (pieces(by, PieceType.BISHOP) | damas)) != 0) {
+			return true;
+		}
+		return (Attacks.rook(square, ocupacao) & (pieces(by, PieceType.ROOK) | damas)) != 0;
+	}
+
+	/**
+	 * Pecas da cor informada que atacam a casa. As pecas deslizantes sao
+	 * bloqueadas pela ocupacao informada, o que permite testar a casa como se
+	 * alguma peca ja tivesse saido do lugar.
+	 * 
+	 * @param square
+	 * @param by        - cor das pecas atacantes
+	 * @param occupancy - ocupacao usada para os raios das pecas deslizantes
+	 * @return bitboard dos atacantes
+	 */
+	public long attackers(int square, Color by, long occupancy) {
+		Color alvo = (by == Color.WHITE) ? Color.BLACK : Color.WHITE;
+		long damas = pieces(by, PieceType.QUEEN);
+		return (Attacks.pawn(alvo, square) & pieces(by, PieceType.PAWN))
+				| (Attacks.knight(square) & pieces(by, PieceType.KNIGHT))
+				| (Attacks.king(square) & pieces(by, PieceType.KING))
+				| (Attacks.bishop(square, occupancy) & (pieces(by, PieceType.BISHOP) | damas))
+				| (Attacks.rook(square, occupancy) & (pieces(by, PieceType.ROOK) | damas));
+	}
+
+	/**
+	 * Retorna a peca da casa informada, sem validar a posicao
+	 * 
+	 * @param square
+	 * @return
+	 */
+	public ChessPiece piece(int square) {
+		return (ChessPiece) piece(square >>> 3, square & 7);
+	}
+
+	@Override
+	public void placePiece(Piece piece, Position position) {
+		super.placePiece(piece, position);
+		alternarBits((ChessPiece) piece, square(position));
+	}
+
+	@Override
+	public Piece removePiece(Position position) {
+		Piece p = super.removePiece(position);
+		if (p != null) {
+			alternarBits((ChessPiece) p, square(position));
+		}
+		return p;
+	}
+
+	@Override
+	public boolean thereIsPiece(Position position) {
+		if (!positionExists(position)) {
+			throw new BoardException("Position not on the board");
+		}
+		return (ocupacao & (1L << square(position))) != 0;
+	}
+
+	/**
+	 * Liga ou desliga o bit da casa nos bitboards da peca e soma ou subtrai seu
+	 * valor dos contadores da avaliacao
+	 * 
+	 * @param piece
+	 * @param square
+	 */
+	private void alternarBits(ChessPiece piece, int square) {
+		long bit = 1L << square;
+		Color color = piece.getColor();
+		PieceType type = piece.getType();
+		int i = indice(color, type);
+		bitboards[i] ^= bit;
+		ocupacaoCor[color.ordinal()] ^= bit;
+		ocupacao ^= bit;
+		chave ^= Zobrist.piece(color, type, square);
+		int sinal = (bitboards[i] & bit) != 0 ? 1 : -1;
+		meioJogo[color.ordinal()] += sinal * PieceSquareTables.middlegame(color, type, square);
+		finalJogo[color.ordinal()] += sinal * PieceSquareTables.endgame(color, type, square);
+		fase += sinal * PieceSquareTables.phase(type);
+	}
+}
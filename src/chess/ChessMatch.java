@@ -1,10 +1,9 @@
 package chess;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
-import boardgame.Board;
 import boardgame.Piece;
 import boardgame.Position;
 import chess.pieces.Bishop;
@@ -22,25 +21,169 @@ import chess.pieces.Rook;
  */
 public class ChessMatch {
 
+	public static final int WHITE_KINGSIDE = 1;
+	public static final int WHITE_QUEENSIDE = 2;
+	public static final int BLACK_KINGSIDE = 4;
+	public static final int BLACK_QUEENSIDE = 8;
+
+	/**
+	 * Direitos de roque que permanecem quando uma peca sai ou chega em cada casa
+	 */
+	private static final int[] MASCARA_ROQUE = new int[64];
+
+	/**
+	 * Casas iniciais dos reis e torres, de onde dependem os direitos de roque
+	 */
+	private static final int[] CASAS_ROQUE = { 0, 4, 7, 56, 60, 63 };
+
+	/**
+	 * Linhas 8 e 1, onde nao pode haver peao
+	 */
+	private static final long PRIMEIRA_E_ULTIMA_LINHA = 0xFF000000000000FFL;
+
+	private static final String[] LETRAS_PROMOCAO = { "", "N", "B", "R", "Q", "" };
+
+	/**
+	 * Letra FEN de cada tipo de peca, na ordem de {@link PieceType}
+	 */
+	private static final String LETRAS_FEN = "pnbrqk";
+
+	static {
+		Arrays.fill(MASCARA_ROQUE, 15);
+		MASCARA_ROQUE[0] = 15 & ~BLACK_QUEENSIDE;
+		MASCARA_ROQUE[7] = 15 & ~BLACK_KINGSIDE;
+		MASCARA_ROQUE[4] = 15 & ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+		MASCARA_ROQUE[56] = 15 & ~WHITE_QUEENSIDE;
+		MASCARA_ROQUE[63] = 15 & ~WHITE_KINGSIDE;
+		MASCARA_ROQUE[60] = 15 & ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+	}
+
 	private int turno;
 	private Color jogadorAtual;
-	private Board board;
+	private ChessBoard board;
 	private boolean check; // uma propriedade boolean por padro inicia com false
 	private boolean checkMate;
 	private ChessPiece enPassantVulnerable;
 	private ChessPiece promoted;
 	
+	private int castlingRights = WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE;
+	private long hash;
+	private int halfmoveClock;
+	
 	private List<Piece> pecasNoTabuleiro = new ArrayList<>();
 	private List<Piece> pecasCapturadas = new ArrayList<>();
+
+	private MoveRecord[] historico = new MoveRecord[64];
+	private int ply;
+	private int[] movimentosMate = new int[Move.MAX_MOVES];
+
+	/**
+	 * Movimentos legais do jogador atual, calculados uma vez por ply e validos
+	 * ate a proxima alteracao da posicao
+	 */
+	private int[] legais = new int[Move.MAX_MOVES];
+	private int quantidadeLegais;
+	private long[] destinosLegais = new long[64];
+	private boolean legaisValidos;
+	private long[] raioCravada = new long[64];
+
+	/**
+	 * Hashes das posicoes da partida em um buffer circular, indexado pela
+	 * quantidade de posicoes registradas. As repeticoes so sao procuradas nos
+	 * ultimos {@link #MEIOS_LANCES_50} meios-lances, entao o buffer comporta essa
+	 * janela mais a profundidade de uma busca, que desfaz o que sobrescreve.
+	 */
+	private static final int HISTORICO_HASH = 256;
+	private static final int MEIOS_LANCES_50 = 100;
+	private long[] hashes = new long[HISTORICO_HASH];
+	private int posicoes;
+
+	/**
+	 * Quantidade de posicoes registradas por entrada, pelos bits baixos do hash.
+	 * Com contagem 1 so a posicao atual caiu na entrada, e a resposta de que nao
+	 * houve repeticao sai sem percorrer o buffer.
+	 */
+	private static final int FILTRO_REPETICAO = 1 << 12;
+	private int[] filtroRepeticao = new int[FILTRO_REPETICAO];
+	private GameStatus situacao = GameStatus.ACTIVE;
+
+	/**
+	 * Ultima posicao completa, lida por outras threads sem trava. Os movimentos
+	 * da busca e de {@link #makeMove(int)} nao publicam; so os movimentos da
+	 * partida.
+	 */
+	private volatile PositionSnapshot snapshot;
 	
 	/**
 	 * Tamanho do tabuleiro
 	 */
 	public ChessMatch() {
-		board = new Board(8, 8);
+		board = new ChessBoard();
 		turno = 1;
 		jogadorAtual = Color.WHITE;
 		initialSetup();
+		atualizarHash();
+		registrarPosicao();
+		publicarSnapshot();
+	}
+
+	/**
+	 * Inicia a partida a partir de uma posicao na notacao FEN. Posicoes que nao
+	 * ocorrem numa partida (sem exatamente um rei de cada cor, com peao na
+	 * primeira ou na ultima linha, ou com o lado que nao joga em cheque) sao
+	 * recusadas com {@link ChessException}, assim como um FEN mal formado.
+	 * 
+	 * @param fen
+	 */
+	public ChessMatch(String fen) {
+		board = new ChessBoard();
+		carregarFen(fen);
+		atualizarHash();
+		registrarPosicao();
+		check = testCheck(jogadorAtual);
+		atualizarSituacao();
+	}
+
+	/**
+	 * Copia a posicao de outra partida, com pecas e tabuleiro proprios. O
+	 * historico de movimentos nao e copiado, entao a copia nao desfaz jogadas
+	 * anteriores a ela; os hashes das posicoes anteriores sao, para que as
+	 * repeticoes continuem sendo reconhecidas.
+	 * 
+	 * @param other
+	 */
+	public ChessMatch(ChessMatch other) {
+		board = new ChessBoard();
+		turno = other.turno;
+		jogadorAtual = other.jogadorAtual;
+		check = other.check;
+		checkMate = other.checkMate;
+		situacao = other.situacao;
+		castlingRights = other.castlingRights;
+		halfmoveClock = other.halfmoveClock;
+		long ocupadas = other.board.occupancy();
+		while (ocupadas != 0) {
+			int sq = Long.numberOfTrailingZeros(ocupadas);
+			ocupadas &= ocupadas - 1;
+			ChessPiece original = other.board.piece(sq);
+			ChessPiece copia = newPiece(original.getType(), original.getColor());
+			for (int i = 0; i < original.getMoveCount(); i++) {
+				copia.increaseMoveCount();
+			}
+			board.placePiece(copia, board.position(sq));
+			pecasNoTabuleiro.add(copia);
+			if (original == other.enPassantVulnerable) {
+				enPassantVulnerable = copia;
+			}
+			if (original == other.promoted) {
+				promoted = copia;
+			}
+		}
+		hash = other.hash;
+		hashes = other.hashes.clone();
+		posicoes = other.posicoes;
+		filtroRepeticao = other.filtroRepeticao.clone();
+		publicarSnapshot();
 	}
 
 	public int getTurno() {
@@ -59,6 +202,48 @@ public class ChessMatch {
 		return checkMate;
 	}
 
+	/**
+	 * Situacao da partida depois do ultimo movimento: em andamento, check mate ou
+	 * empate por afogamento, tripla repeticao ou regra dos 50 lances
+	 * 
+	 * @return
+	 */
+	public GameStatus getStatus() {
+		return situacao;
+	}
+
+	/**
+	 * Copia imutavel da posicao depois do ultimo movimento completo da partida.
+	 * Pode ser chamado por qualquer thread, inclusive enquanto outra executa
+	 * movimentos ou busca sobre a partida.
+	 * 
+	 * @return
+	 */
+	public PositionSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Verifica se a posicao atual ja ocorreu desde o ultimo movimento
+	 * irreversivel. A busca trata a primeira repeticao como empate, ja que o
+	 * ciclo pode ser repetido; a partida so termina na terceira ocorrencia.
+	 * 
+	 * @return
+	 */
+	public boolean isRepetition() {
+		return repeticoes(1) > 0;
+	}
+
+	/**
+	 * Verifica se ja se passaram 50 lances de cada jogador sem captura nem
+	 * movimento de peao
+	 * 
+	 * @return
+	 */
+	public boolean isFiftyMoveRule() {
+		return halfmoveClock >= MEIOS_LANCES_50;
+	}
+
 	public ChessPiece getEnPassantVulnerable() {
 		return enPassantVulnerable;
 	}
@@ -68,7 +253,179 @@ public class ChessMatch {
 	}
 
 	/**
-	 * Retorna uma matriz de pe�as da partida de xadrez
+	 * Cor do vencedor da partida, ou null enquanto nao houver check mate
+	 * 
+	 * @return
+	 */
+	public Color getVencedor() {
+		return checkMate ? oponente(jogadorAtual) : null;
+	}
+
+	/**
+	 * Peca da casa informada (numeracao de {@link ChessBoard}), ou null
+	 * 
+	 * @param square
+	 * @return
+	 */
+	public ChessPiece getPiece(int square) {
+		return board.piece(square);
+	}
+
+	/**
+	 * Bitboard das pecas de um tipo e cor
+	 * 
+	 * @param color
+	 * @param type
+	 * @return
+	 */
+	public long getBitboard(Color color, PieceType type) {
+		return board.pieces(color, type);
+	}
+
+	/**
+	 * Avaliacao afilada de material e posicao das pecas, em centipeoes, do ponto
+	 * de vista do jogador atual. Os contadores sao mantidos pelo tabuleiro a cada
+	 * movimento, entao a consulta nao percorre as pecas.
+	 * 
+	 * @return
+	 */
+	public int getEvaluation() {
+		int meioJogo = board.middlegameScore(Color.WHITE) - board.middlegameScore(Color.BLACK);
+		int finalJogo = board.endgameScore(Color.WHITE) - board.endgameScore(Color.BLACK);
+		int fase = Math.min(board.phase(), PieceSquareTables.MAX_PHASE);
+		int score = (meioJogo * fase + finalJogo * (PieceSquareTables.MAX_PHASE - fase)) / PieceSquareTables.MAX_PHASE;
+		return jogadorAtual == Color.WHITE ? score : -score;
+	}
+
+	/**
+	 * Verifica se o movimento captura uma peca, incluindo en passant
+	 * 
+	 * @param move
+	 * @return
+	 */
+	public boolean isCapture(int move) {
+		int from = Move.from(move);
+		int to = Move.to(move);
+		if ((board.occupancy() & (1L << to)) != 0) {
+			return true;
+		}
+		return ChessBoard.column(from) != ChessBoard.column(to)
+				&& (board.pieces(jogadorAtual, PieceType.PAWN) & (1L << from)) != 0;
+	}
+
+	/**
+	 * Hash de Zobrist da posicao: pecas, vez de jogar, direitos de roque e coluna
+	 * de en passant
+	 * 
+	 * @return
+	 */
+	public long getHash() {
+		return hash;
+	}
+
+	/**
+	 * Numero de meios-lances desde a ultima captura ou movimento de peao
+	 * 
+	 * @return
+	 */
+	public int getHalfmoveClock() {
+		return halfmoveClock;
+	}
+
+	/**
+	 * Posicao atual na notacao FEN
+	 * 
+	 * @return
+	 */
+	public String toFen() {
+		return appendFen(new StringBuilder(90)).toString();
+	}
+
+	/**
+	 * Escreve a posicao atual na notacao FEN no final do buffer informado, sem
+	 * criar objetos intermediarios
+	 * 
+	 * @param sb
+	 * @return o proprio buffer
+	 */
+	public StringBuilder appendFen(StringBuilder sb) {
+		for (int row = 0; row < 8; row++) {
+			int vazias = 0;
+			for (int column = 0; column < 8; column++) {
+				ChessPiece piece = board.piece(ChessBoard.square(row, column));
+				if (piece == null) {
+					vazias++;
+					continue;
+				}
+				if (vazias > 0) {
+					sb.append((char) ('0' + vazias));
+					vazias = 0;
+				}
+				char letra = LETRAS_FEN.charAt(piece.getType().ordinal());
+				sb.append(piece.getColor() == Color.WHITE ? Character.toUpperCase(letra) : letra);
+			}
+			if (vazias > 0) {
+				sb.append((char) ('0' + vazias));
+			}
+			if (row < 7) {
+				sb.append('/');
+			}
+		}
+		sb.append(jogadorAtual == Color.WHITE ? " w " : " b ");
+		if (castlingRights == 0) {
+			sb.append('-');
+		} else {
+			if ((castlingRights & WHITE_KINGSIDE) != 0) sb.append('K');
+			if ((castlingRights & WHITE_QUEENSIDE) != 0) sb.append('Q');
+			if ((castlingRights & BLACK_KINGSIDE) != 0) sb.append('k');
+			if ((castlingRights & BLACK_QUEENSIDE) != 0) sb.append('q');
+		}
+		sb.append(' ');
+		int alvo = alvoEnPassant();
+		if (alvo >= 0) {
+			sb.append((char) ('a' + ChessBoard.column(alvo))).append((char) ('8' - ChessBoard.row(alvo)));
+		} else {
+			sb.append('-');
+		}
+		return sb.append(' ').append(halfmoveClock).append(' ').append((turno + 1) / 2);
+	}
+
+	/**
+	 * Casa para onde um peao pode capturar en passant, ou -1
+	 */
+	private int alvoEnPassant() {
+		if (enPassantVulnerable == null) {
+			return -1;
+		}
+		int sq = enPassantVulnerable.getSquare();
+		return enPassantVulnerable.getColor() == Color.WHITE ? sq + 8 : sq - 8;
+	}
+
+	public int getCastlingRights() {
+		return castlingRights;
+	}
+
+	/**
+	 * Verifica se a cor ainda tem direito ao roque do lado informado
+	 * 
+	 * @param color
+	 * @param kingside - true para o roque pequeno
+	 * @return
+	 */
+	public boolean canCastle(Color color, boolean kingside) {
+		int direito;
+		if (color == Color.WHITE) {
+			direito = kingside ? WHITE_KINGSIDE : WHITE_QUEENSIDE;
+		} else {
+			direito = kingside ? BLACK_KINGSIDE : BLACK_QUEENSIDE;
+		}
+		return (castlingRights & direito) != 0;
+	}
+
+	/**
+	 * Retorna uma matriz de pe�as da partida de xadrez. As pecas sao as da
+	 * partida, entao so a thread que executa os movimentos deve chamar; as
+	 * demais usam {@link #getSnapshot()}.
 	 * 
 	 * @return
 	 */
@@ -92,11 +449,200 @@ public class ChessMatch {
 	public boolean[][] possibleMoves(ChessPosition sourcePosition) {
 		Position position = sourcePosition.toPosition();
 		validarPosicaoOrigem(position);
-		return board.piece(position).possibleMoves();
+		long destinos = destinosLegais[ChessBoard.square(position)];
+		boolean[][] mat = new boolean[board.getRows()][board.getColumns()];
+		while (destinos != 0) {
+			int sq = Long.numberOfTrailingZeros(destinos);
+			mat[ChessBoard.row(sq)][ChessBoard.column(sq)] = true;
+			destinos &= destinos - 1;
+		}
+		return mat;
+	}
+
+	/**
+	 * Movimentos legais do jogador atual, ja sem os que deixam o proprio rei em
+	 * cheque. A lista e calculada uma vez por ply e compartilhada com a validacao
+	 * de movimentos e com {@link #possibleMoves(ChessPosition)}. Cada promocao
+	 * aparece uma vez para cada peca.
+	 * 
+	 * @return copia da lista, codificada por {@link Move}
+	 */
+	public int[] legalMoves() {
+		calcularLegais();
+		return Arrays.copyOf(legais, quantidadeLegais);
+	}
+
+	/**
+	 * Quantidade de movimentos legais do jogador atual
+	 * 
+	 * @return
+	 */
+	public int legalMoveCount() {
+		calcularLegais();
+		return quantidadeLegais;
+	}
+
+	/**
+	 * Gera apenas os movimentos legais do jogador atual, sem executar nenhum
+	 * movimento, no buffer informado. Nao aloca memoria.
+	 * 
+	 * @param moves - buffer com ao menos {@link Move#MAX_MOVES} posicoes
+	 * @return quantidade de movimentos escritos
+	 */
+	public int generateLegalMoves(int[] moves) {
+		return gerarLegais(jogadorAtual, moves, null);
+	}
+
+	/**
+	 * Preenche a lista de movimentos legais, se a posicao mudou desde o ultimo
+	 * calculo
+	 */
+	private void calcularLegais() {
+		if (legaisValidos) {
+			return;
+		}
+		Arrays.fill(destinosLegais, 0);
+		quantidadeLegais = gerarLegais(jogadorAtual, legais, destinosLegais);
+		legaisValidos = true;
+	}
+
+	/**
+	 * Gerador estritamente legal. Os cheques e as pecas cravadas sao calculados
+	 * antes: em cheque duplo so o rei move; em cheque simples as outras pecas so
+	 * podem capturar o atacante ou bloquear o raio; uma peca cravada so anda
+	 * entre o rei e quem a crava; o rei nunca vai para uma casa atacada. O en
+	 * passant, que tira duas pecas da mesma fileira, e conferido com a ocupacao
+	 * resultante.
+	 * 
+	 * @param destinos - recebe o bitboard de destinos de cada casa de origem; pode
+	 *                 ser null
+	 */
+	private int gerarLegais(Color color, int[] moves, long[] destinos) {
+		Color oponente = oponente(color);
+		int rei = king(color);
+		long ocupacao = board.occupancy();
+		long proprias = board.occupancy(color);
+		long atacantes = board.attackers(rei, oponente, ocupacao);
+
+		// pecas cravadas: um unico bloqueio, proprio, entre o rei e uma peca
+		// deslizante do oponente
+		long cravadas = 0;
+		long damas = board.pieces(oponente, PieceType.QUEEN);
+		long deslizantes = (Attacks.rook(rei, 0) & (board.pieces(oponente, PieceType.ROOK) | damas))
+				| (Attacks.bishop(rei, 0) & (board.pieces(oponente, PieceType.BISHOP) | damas));
+		while (deslizantes != 0) {
+			int sq = Long.numberOfTrailingZeros(deslizantes);
+			deslizantes &= deslizantes - 1;
+			long entre = Attacks.between(rei, sq) & ocupacao;
+			if (entre != 0 && (entre & (entre - 1)) == 0 && (entre & proprias) != 0) {
+				cravadas |= entre;
+				raioCravada[Long.numberOfTrailingZeros(entre)] = Attacks.between(rei, sq) | (1L << sq);
+			}
+		}
+
+		int cheques = Long.bitCount(atacantes);
+		long evasao = cheques == 1
+				? atacantes | Attacks.between(rei, Long.numberOfTrailingZeros(atacantes))
+				: ~0L;
+		int count = 0;
+		long pecas = proprias;
+		while (pecas != 0) {
+			int from = Long.numberOfTrailingZeros(pecas);
+			pecas &= pecas - 1;
+			ChessPiece p = board.piece(from);
+			long alvos = p.possibleMovesBitboard();
+			if (p.getType() == PieceType.KING) {
+				long semRei = ocupacao & ~(1L << from);
+				long seguros = 0;
+				while (alvos != 0) {
+					int to = Long.numberOfTrailingZeros(alvos);
+					alvos &= alvos - 1;
+					if (board.attackers(to, oponente, semRei) == 0) {
+						seguros |= 1L << to;
+					}
+				}
+				alvos = seguros;
+			} else if (cheques > 1) {
+				continue;
+			} else {
+				long enPassant = 0;
+				if (p.getType() == PieceType.PAWN) {
+					// #specialmove en passant: captura diagonal para casa vazia
+					enPassant = alvos & Attacks.pawn(color, from) & ~ocupacao;
+					alvos &= ~enPassant;
+					if (enPassant != 0 && !enPassantLegal(color, rei, from, Long.numberOfTrailingZeros(enPassant))) {
+						enPassant = 0;
+					}
+				}
+				alvos &= evasao;
+				if ((cravadas & (1L << from)) != 0) {
+					alvos &= raioCravada[from];
+				}
+				alvos |= enPassant;
+			}
+			if (destinos != null) {
+				destinos[from] = alvos;
+			}
+			count = escrever(p, from, alvos, moves, count);
+		}
+		return count;
+	}
+
+	/**
+	 * Confere o en passant tirando da ocupacao o peao que move e o capturado
+	 */
+	private boolean enPassantLegal(Color color, int rei, int from, int to) {
+		int capturado = (color == Color.WHITE) ? to + 8 : to - 8;
+		long ocupacao = board.occupancy() ^ (1L << from) ^ (1L << to) ^ (1L << capturado);
+		return (board.attackers(rei, oponente(color), ocupacao) & ~(1L << capturado)) == 0;
+	}
+
+	/**
+	 * Escreve os movimentos de uma peca, expandindo as promocoes nas quatro pecas
+	 */
+	private static int escrever(ChessPiece p, int from, long alvos, int[] moves, int count) {
+		while (alvos != 0) {
+			int to = Long.numberOfTrailingZeros(alvos);
+			alvos &= alvos - 1;
+			if (p.getType() == PieceType.PAWN && (to < 8 || to >= 56)) {
+				// #specialmove promotion
+				moves[count++] = Move.encode(from, to, PieceType.QUEEN);
+				moves[count++] = Move.encode(from, to, PieceType.ROOK);
+				moves[count++] = Move.encode(from, to, PieceType.BISHOP);
+				moves[count++] = Move.encode(from, to, PieceType.KNIGHT);
+			} else {
+				moves[count++] = Move.encode(from, to);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Gera os movimentos possiveis do jogador atual, codificados por
+	 * {@link Move}, no buffer informado. Nao aloca memoria; o buffer deve ter ao
+	 * menos {@link Move#MAX_MOVES} posicoes. Os movimentos ainda nao foram
+	 * filtrados pelo check do proprio rei.
+	 * 
+	 * @param moves - buffer reutilizavel
+	 * @return quantidade de movimentos escritos
+	 */
+	public int generateMoves(int[] moves) {
+		return generateMoves(jogadorAtual, moves);
+	}
+
+	private int generateMoves(Color color, int[] moves) {
+		int count = 0;
+		for (int i = 0; i < pecasNoTabuleiro.size(); i++) {
+			ChessPiece p = (ChessPiece) pecasNoTabuleiro.get(i);
+			if (p.getColor() == color) {
+				count = p.generateMoves(moves, count);
+			}
+		}
+		return count;
 	}
 
 	/**
-	 * Responsavel por mover a pe�a da pos origem para destino retorna uma posicao
+	 * Responsavel por mover a peca da pos origem para destino retorna uma posicao
 	 * capturada, se for o caso
 	 */
 	public ChessPiece executarMovimentoXadrez(ChessPosition sourcePosition, ChessPosition targetPosition) {
@@ -104,62 +650,133 @@ public class ChessMatch {
 		Position target = targetPosition.toPosition();
 		validarPosicaoOrigem(source);
 		validarPosicaoDestion(source, target);
-		Piece pecaCapturada = makeMove(source, target);
+		makeMove(Move.encode(ChessBoard.square(source), ChessBoard.square(target)));
+		ChessPiece pecaCapturada = historico[ply - 1].captured;
 
-		testCheckJogadorAtual(source, target, pecaCapturada);
-		ChessPiece movedPiece = (ChessPiece) board.piece(target);
-		testCheckOponente();
+		atualizarSituacao();
+		return pecaCapturada;
+	}
 
-		// #specialmove promotion
-		promoted = null;
-		if (movedPiece instanceof Pawn) {
-			if ((movedPiece.getColor() == Color.WHITE && target.getRow() == 0)
-					|| (movedPiece.getColor() == Color.BLACK && target.getRow() == 7)) {
-				promoted = (ChessPiece) board.piece(target);
-				promoted = replacePromotedPiece("Q");
-			}
-		}
+	/**
+	 * Valida um movimento do jogador atual sem lancar excecao e sem alterar a
+	 * partida
+	 * 
+	 * @param move - movimento codificado por {@link Move}; a promocao, se
+	 *             informada, tambem e validada
+	 * @return {@link MoveStatus#OK} ou o motivo da rejeicao
+	 */
+	public MoveStatus validateMove(int move) {
+		return validarMovimento(move);
+	}
 
-		if (testCheckMate(oponente(jogadorAtual))) {
-			checkMate = true;
-		} else {
-			proximoTurno();
+	/**
+	 * Valida e executa um movimento do jogador atual sem lancar excecao. Ao
+	 * contrario de {@link #executarMovimentoXadrez}, a peca de promocao vem no
+	 * proprio movimento (dama se nao informada).
+	 * 
+	 * @param move - movimento codificado por {@link Move}
+	 * @return {@link MoveStatus#OK} se o movimento foi executado, ou o motivo da
+	 *         rejeicao; nesse caso a partida nao e alterada
+	 */
+	public MoveStatus playMove(int move) {
+		MoveStatus status = validarMovimento(move);
+		if (status == MoveStatus.OK) {
+			makeMove(move);
+			atualizarSituacao();
 		}
+		return status;
+	}
 
-		// #specialmove en passant
-		if (movedPiece instanceof Pawn
-				&& (target.getRow() == source.getRow() - 2 || target.getRow() == source.getRow() + 2)) {
-			enPassantVulnerable = movedPiece;
+	/**
+	 * Valida uma sequencia de movimentos em uma unica chamada, sem lancar
+	 * excecoes. A validacao para no primeiro movimento invalido. O teste de check
+	 * mate e de empate so e feito ao final, entao um movimento depois de um mate
+	 * e rejeitado pelas regras normais (o jogador mateado nao tem movimento
+	 * legal) e os movimentos depois de uma repeticao sao aceitos.
+	 * 
+	 * @param moves - movimentos codificados por {@link Move}
+	 * @param count - quantidade de movimentos do vetor a validar
+	 * @param apply - se true, os movimentos validos permanecem executados; senao a
+	 *              partida e restaurada
+	 * @return quantos movimentos sao validos e o motivo da rejeicao do primeiro
+	 *         invalido
+	 */
+	public SequenceValidation validateSequence(int[] moves, int count, boolean apply) {
+		int validos = 0;
+		MoveStatus status = MoveStatus.OK;
+		while (validos < count) {
+			status = validarMovimento(moves[validos]);
+			if (status != MoveStatus.OK) {
+				break;
+			}
+			makeMove(moves[validos]);
+			validos++;
+		}
+		if (apply) {
+			if (validos > 0) {
+				atualizarSituacao();
+			}
 		} else {
-			enPassantVulnerable = null;
+			for (int i = 0; i < validos; i++) {
+				desfazMovimento();
+			}
 		}
-		return (ChessPiece) pecaCapturada;
+		return new SequenceValidation(validos, status);
 	}
 
 	/**
-	 * Verifica se o oponente esta em cheque
+	 * Regras do movimento: partida em andamento, peca do jogador atual na origem,
+	 * destino entre os movimentos legais e promocao coerente. A legalidade vem da
+	 * lista do ply, entao o movimento nao precisa ser executado.
 	 */
-	private void testCheckOponente() {
-		check = (testCheck(oponente(jogadorAtual))) ? true : false;
+	private MoveStatus validarMovimento(int move) {
+		if (situacao.isOver()) {
+			return MoveStatus.GAME_OVER;
+		}
+		if (!Move.isWellFormed(move)) {
+			return MoveStatus.MALFORMED;
+		}
+		int from = Move.from(move);
+		int to = Move.to(move);
+		MoveStatus status = validarOrigem(from);
+		if (status != MoveStatus.OK) {
+			return status;
+		}
+		ChessPiece piece = board.piece(from);
+		if ((destinosLegais[from] & (1L << to)) == 0) {
+			// alcancavel pela peca, mas deixaria o rei em cheque
+			return (piece.possibleMovesBitboard() & (1L << to)) != 0 ? MoveStatus.SELF_CHECK
+					: MoveStatus.ILLEGAL_TARGET;
+		}
+		PieceType promocao = Move.promotion(move);
+		if (promocao != null && (piece.getType() != PieceType.PAWN || (to >= 8 && to < 56))) {
+			return MoveStatus.INVALID_PROMOTION;
+		}
+		return MoveStatus.OK;
 	}
 
-	/**
-	 * Verifica se o jogador atual se colocou em cheque
-	 * 
-	 * @param source
-	 * @param target
-	 * @param pecaCapturada
-	 */
-	private void testCheckJogadorAtual(Position source, Position target, Piece pecaCapturada) {
-		if (testCheck(jogadorAtual)) {
-			desfazMovimento(source, target, pecaCapturada);
-			throw new ChessException("Voce nao pode se colocar em check!!!");
+	private MoveStatus validarOrigem(int from) {
+		ChessPiece piece = board.piece(from);
+		if (piece == null) {
+			return MoveStatus.NO_PIECE;
 		}
+		if (piece.getColor() != jogadorAtual) {
+			return MoveStatus.WRONG_COLOR;
+		}
+		calcularLegais();
+		if (destinosLegais[from] == 0) {
+			return MoveStatus.NO_POSSIBLE_MOVES;
+		}
+		return MoveStatus.OK;
 	}
 
 	private void validarPosicaoDestion(Position source, Position target) {
-		if (!board.piece(source).possibleMove(target)) {
-			throw new ChessException("A peca escolhida nao pode mover para posicao destino");
+		int from = ChessBoard.square(source);
+		int to = ChessBoard.square(target);
+		if ((destinosLegais[from] & (1L << to)) == 0) {
+			boolean alcancavel = (board.piece(from).possibleMovesBitboard() & (1L << to)) != 0;
+			throw new ChessException(
+					(alcancavel ? MoveStatus.SELF_CHECK : MoveStatus.ILLEGAL_TARGET).getMessage());
 		}
 	}
 
@@ -177,7 +794,16 @@ public class ChessMatch {
 		ChessPiece newPiece = newPiece(type,promoted.getColor());
 		board.placePiece(newPiece, pos);
 		pecasNoTabuleiro.add(newPiece);
-		
+		historico[ply - 1].promotedPiece = newPiece;
+		promoted = newPiece;
+		legaisValidos = false;
+		desregistrarPosicao();
+		atualizarHash();
+		registrarPosicao();
+
+		// a troca da peca pode mudar o check e o check mate do oponente
+		check = testCheck(jogadorAtual);
+		atualizarSituacao();
 		return newPiece;
 	}
 
@@ -198,101 +824,256 @@ public class ChessMatch {
 		return new Rook(board, color);
 	}
 
-	private Piece makeMove(Position source, Position target) {
-		ChessPiece p = (ChessPiece) board.removePiece(source);
+	private ChessPiece newPiece(PieceType type, Color color) {
+		switch (type) {
+		case PAWN:
+			return new Pawn(board, color, this);
+		case KNIGHT:
+			return new Knight(board, color);
+		case BISHOP:
+			return new Bishop(board, color);
+		case ROOK:
+			return new Rook(board, color);
+		case QUEEN:
+			return new Queen(board, color);
+		default:
+			return new King(board, color, this);
+		}
+	}
+
+	/**
+	 * Executa um movimento codificado por {@link Move} sem validacao e passa a vez
+	 * ao oponente. Todo o estado alterado e empilhado em um {@link MoveRecord},
+	 * de modo que {@link #desfazMovimento()} restaura a partida exatamente.
+	 * 
+	 * @param move
+	 */
+	public void makeMove(int move) {
+		int from = Move.from(move);
+		int to = Move.to(move);
+		MoveRecord r = proximoRegistro();
+		r.move = move;
+		r.previousEnPassantVulnerable = enPassantVulnerable;
+		r.previousPromoted = promoted;
+		r.previousCheck = check;
+		r.previousCastlingRights = castlingRights;
+		r.previousHash = hash;
+		r.previousHalfmoveClock = halfmoveClock;
+		legaisValidos = false;
+
+		ChessPiece p = (ChessPiece) board.removePiece(board.position(from));
 		p.increaseMoveCount();
-		Piece capturedPiece = board.removePiece(target);
-		board.placePiece(p, target);
+		ChessPiece capturedPiece = (ChessPiece) board.removePiece(board.position(to));
+		int capturedSquare = to;
 
+		// #specialmove en passant
+		if (p.getType() == PieceType.PAWN && ChessBoard.column(from) != ChessBoard.column(to)
+				&& capturedPiece == null) {
+			capturedSquare = (p.getColor() == Color.WHITE) ? to + 8 : to - 8;
+			capturedPiece = (ChessPiece) board.removePiece(board.position(capturedSquare));
+		}
 		if (capturedPiece != null) {
 			pecasNoTabuleiro.remove(capturedPiece);
 			pecasCapturadas.add(capturedPiece);
 		}
+		board.placePiece(p, board.position(to));
+		r.piece = p;
+		r.captured = capturedPiece;
+		r.capturedSquare = capturedSquare;
 
-		// #specialmove castling kingside rook
-		if (p instanceof King && target.getColumn() == source.getColumn() + 2) {
-			Position sourceT = new Position(source.getRow(), source.getColumn() + 3);
-			Position targetT = new Position(source.getRow(), source.getColumn() + 1);
-			ChessPiece rook = (ChessPiece) board.removePiece(sourceT);
-			board.placePiece(rook, targetT);
+		// #specialmove castling
+		r.rookFrom = -1;
+		if (p.getType() == PieceType.KING && (to == from + 2 || to == from - 2)) {
+			r.rookFrom = (to > from) ? from + 3 : from - 4;
+			r.rookTo = (to > from) ? from + 1 : from - 1;
+			ChessPiece rook = (ChessPiece) board.removePiece(board.position(r.rookFrom));
+			board.placePiece(rook, board.position(r.rookTo));
 			rook.increaseMoveCount();
 		}
 
-		// #specialmove castling queenside rook
-		if (p instanceof King && target.getColumn() == source.getColumn() - 2) {
-			Position sourceT = new Position(source.getRow(), source.getColumn() - 4);
-			Position targetT = new Position(source.getRow(), source.getColumn() - 1);
-			ChessPiece rook = (ChessPiece) board.removePiece(sourceT);
-			board.placePiece(rook, targetT);
-			rook.increaseMoveCount();
+		// #specialmove promotion
+		r.promotedPiece = null;
+		promoted = null;
+		if (p.getType() == PieceType.PAWN && (to < 8 || to >= 56)) {
+			PieceType tipo = Move.promotion(move);
+			ChessPiece newPiece = newPiece(tipo == null ? "Q" : LETRAS_PROMOCAO[tipo.ordinal()], p.getColor());
+			board.removePiece(board.position(to));
+			pecasNoTabuleiro.remove(p);
+			board.placePiece(newPiece, board.position(to));
+			pecasNoTabuleiro.add(newPiece);
+			r.promotedPiece = newPiece;
+			promoted = newPiece;
 		}
 
 		// #specialmove en passant
-		if (p instanceof Pawn) {
-			if (source.getColumn() != target.getColumn() && capturedPiece == null) {
-				Position pawnPosition;
-				if (p.getColor() == Color.WHITE) {
-					pawnPosition = new Position(target.getRow() + 1, target.getColumn());
-				} else {
-					pawnPosition = new Position(target.getRow() - 1, target.getColumn());
-				}
-				capturedPiece = board.removePiece(pawnPosition);
-				pecasCapturadas.add(capturedPiece);
-				pecasNoTabuleiro.remove(capturedPiece);
-			}
+		if (p.getType() == PieceType.PAWN && (to == from - 16 || to == from + 16)) {
+			enPassantVulnerable = p;
+		} else {
+			enPassantVulnerable = null;
 		}
 
-		return capturedPiece;
+		castlingRights &= MASCARA_ROQUE[from] & MASCARA_ROQUE[to];
+		halfmoveClock = (p.getType() == PieceType.PAWN || capturedPiece != null) ? 0 : halfmoveClock + 1;
+		proximoTurno();
+		atualizarHash();
+		registrarPosicao();
+		check = testCheck(jogadorAtual);
 	}
 
 	/**
-	 * Desfaz o movimento da peca. Necassario caso o user se coloque em check.
-	 * 
-	 * @param source
-	 * @param target
-	 * @param capturedPiece
+	 * Desfaz o ultimo movimento executado por {@link #makeMove(int)}, restaurando
+	 * pecas, capturas, roque, en passant, promocao e a vez do jogador.
 	 */
-	private void desfazMovimento(Position source, Position target, Piece capturedPiece) {
-		ChessPiece p = (ChessPiece) board.removePiece(target);
+	public void desfazMovimento() {
+		MoveRecord r = historico[--ply];
+		int from = Move.from(r.move);
+		int to = Move.to(r.move);
+		turnoAnterior();
+		legaisValidos = false;
+
+		// #specialmove promotion
+		if (r.promotedPiece != null) {
+			board.removePiece(board.position(to));
+			pecasNoTabuleiro.remove(r.promotedPiece);
+			board.placePiece(r.piece, board.position(to));
+			pecasNoTabuleiro.add(r.piece);
+		}
+
+		ChessPiece p = (ChessPiece) board.removePiece(board.position(to));
 		p.deacreaseMoveCount();
-		board.placePiece(p, source);
+		board.placePiece(p, board.position(from));
 
-		if (capturedPiece != null) {
-			board.placePiece(capturedPiece, target);
-			pecasCapturadas.remove(capturedPiece);
-			pecasNoTabuleiro.add(capturedPiece);
-		}
-		// #special castling kingside rook
-		if (p instanceof King && target.getColumn() == source.getColumn() + 2) {
-			Position sourceT = new Position(source.getRow(), source.getColumn() + 3);
-			Position targetT = new Position(source.getRow(), source.getColumn() + 1);
-			ChessPiece rook = (ChessPiece) board.removePiece(targetT);
-			board.placePiece(rook, sourceT);
+		// #specialmove castling
+		if (r.rookFrom >= 0) {
+			ChessPiece rook = (ChessPiece) board.removePiece(board.position(r.rookTo));
+			board.placePiece(rook, board.position(r.rookFrom));
 			rook.deacreaseMoveCount();
 		}
 
-		// #special castling queenside rook
-		if (p instanceof King && target.getColumn() == source.getColumn() - 2) {
-			Position sourceT = new Position(source.getRow(), source.getColumn() - 4);
-			Position targetT = new Position(source.getRow(), source.getColumn() - 1);
-			ChessPiece rook = (ChessPiece) board.removePiece(targetT);
-			board.placePiece(rook, sourceT);
-			rook.deacreaseMoveCount();
+		if (r.captured != null) {
+			board.placePiece(r.captured, board.position(r.capturedSquare));
+			pecasCapturadas.remove(pecasCapturadas.size() - 1);
+			pecasNoTabuleiro.add(r.captured);
 		}
-		// #specialmove en passant
-		if (p instanceof Pawn) {
-			if (source.getColumn() != target.getColumn() && capturedPiece == enPassantVulnerable) {
-				ChessPiece pawn = (ChessPiece) board.removePiece(target);
-				Position pawnPosition;
-				if (p.getColor() == Color.WHITE) {
-					pawnPosition = new Position(3, target.getColumn());
-				} else {
-					pawnPosition = new Position(4, target.getColumn());
-				}
-				board.placePiece(pawn, pawnPosition);
+
+		enPassantVulnerable = r.previousEnPassantVulnerable;
+		promoted = r.previousPromoted;
+		check = r.previousCheck;
+		castlingRights = r.previousCastlingRights;
+		desregistrarPosicao();
+		hash = r.previousHash;
+		halfmoveClock = r.previousHalfmoveClock;
+		r.piece = null;
+		r.captured = null;
+		r.promotedPiece = null;
+		r.previousEnPassantVulnerable = null;
+		r.previousPromoted = null;
+	}
+
+	/**
+	 * Proximo registro livre da pilha de desfazer, aumentando a pilha se
+	 * necessario
+	 */
+	private MoveRecord proximoRegistro() {
+		if (ply == historico.length) {
+			historico = Arrays.copyOf(historico, historico.length * 2);
+		}
+		if (historico[ply] == null) {
+			historico[ply] = new MoveRecord();
+		}
+		return historico[ply++];
+	}
+
+	/**
+	 * Combina a chave das pecas, mantida pelo tabuleiro, com a parte do estado
+	 * que pertence a partida. A coluna de en passant so entra no hash quando ha
+	 * um peao do jogador atual em condicao de capturar.
+	 */
+	private void atualizarHash() {
+		long h = board.getKey() ^ Zobrist.castling(castlingRights);
+		if (jogadorAtual == Color.BLACK) {
+			h ^= Zobrist.blackToMove();
+		}
+		if (enPassantVulnerable != null) {
+			int sq = enPassantVulnerable.getSquare();
+			int column = ChessBoard.column(sq);
+			long vizinhas = 0;
+			if (column > 0) {
+				vizinhas |= 1L << (sq - 1);
 			}
+			if (column < 7) {
+				vizinhas |= 1L << (sq + 1);
+			}
+			if ((vizinhas & board.pieces(jogadorAtual, PieceType.PAWN)) != 0) {
+				h ^= Zobrist.enPassant(column);
+			}
+		}
+		hash = h;
+	}
+
+	/**
+	 * Registra o hash da posicao atual no historico de repeticoes
+	 */
+	private void registrarPosicao() {
+		hashes[posicoes++ & (HISTORICO_HASH - 1)] = hash;
+		filtroRepeticao[(int) hash & (FILTRO_REPETICAO - 1)]++;
+	}
+
+	/**
+	 * Retira a posicao atual do historico; o hash ainda deve ser o registrado
+	 */
+	private void desregistrarPosicao() {
+		filtroRepeticao[(int) hash & (FILTRO_REPETICAO - 1)]--;
+		posicoes--;
+	}
+
+	/**
+	 * Conta as ocorrencias anteriores da posicao atual, ate o limite informado.
+	 * Nenhuma repeticao atravessa um movimento irreversivel e a mesma vez de
+	 * jogar so volta a cada dois meios-lances, entao basta percorrer a janela do
+	 * halfmove clock de dois em dois, a partir de quatro meios-lances atras.
+	 */
+	private int repeticoes(int limite) {
+		if (filtroRepeticao[(int) hash & (FILTRO_REPETICAO - 1)] < 2) {
+			return 0;
 		}
+		int janela = Math.min(Math.min(halfmoveClock, posicoes - 1), MEIOS_LANCES_50);
+		int n = 0;
+		for (int i = 4; i <= janela; i += 2) {
+			if (hashes[(posicoes - 1 - i) & (HISTORICO_HASH - 1)] == hash && ++n >= limite) {
+				break;
+			}
+		}
+		return n;
+	}
 
+	/**
+	 * Atualiza o check mate e a situacao da partida depois de um movimento
+	 * completo. O check mate tem precedencia sobre os empates.
+	 */
+	private void atualizarSituacao() {
+		checkMate = testCheckMate(jogadorAtual);
+		if (checkMate) {
+			situacao = GameStatus.CHECKMATE;
+		} else if (!check && legalMoveCount() == 0) {
+			situacao = GameStatus.STALEMATE;
+		} else if (repeticoes(2) >= 2) {
+			situacao = GameStatus.THREEFOLD_REPETITION;
+		} else if (isFiftyMoveRule()) {
+			situacao = GameStatus.FIFTY_MOVE_RULE;
+		} else {
+			situacao = GameStatus.ACTIVE;
+		}
+		publicarSnapshot();
+	}
+
+	/**
+	 * Publica a posicao atual. A escrita volatil vem depois de todo o estado do
+	 * movimento, entao quem le o snapshot nunca ve uma posicao intermediaria.
+	 */
+	private void publicarSnapshot() {
+		snapshot = new PositionSnapshot(board, jogadorAtual, castlingRights, alvoEnPassant(), check, situacao,
+				halfmoveClock, turno, hash);
 	}
 
 	private void proximoTurno() {
@@ -300,18 +1081,40 @@ public class ChessMatch {
 		jogadorAtual = (jogadorAtual == Color.WHITE) ? Color.BLACK : Color.WHITE;
 	}
 
+	private void turnoAnterior() {
+		turno--;
+		jogadorAtual = (jogadorAtual == Color.WHITE) ? Color.BLACK : Color.WHITE;
+	}
+
 	private void validarPosicaoOrigem(Position source) {
-		if (!board.thereIsPiece(source)) {
-			throw new ChessException("Nao ha peca na posicao de origem ");
-		}
-		if (jogadorAtual != ((ChessPiece) board.piece(source)).getColor()) {
-			throw new ChessException("A peca escolhida nao eh sua ");
-		}
-		if (!board.piece(source).isThereAnyPossibleMove()) {
-			throw new ChessException("Nao existe movimentos possiveis para peca escolhida ");
+		MoveStatus status = validarOrigem(ChessBoard.square(source));
+		if (status != MoveStatus.OK) {
+			throw new ChessException(status.getMessage());
 		}
 	}
 
+	/**
+	 * Verifica se o rei da cor informada esta sendo atacado. Apos
+	 * {@link #makeMove(int)}, o movimento so e legal se o rei de quem moveu nao
+	 * estiver em cheque.
+	 * 
+	 * @param color
+	 * @return
+	 */
+	public boolean isInCheck(Color color) {
+		return testCheck(color);
+	}
+
+	/**
+	 * Verifica se a cor informada, na vez de jogar, esta em check mate
+	 * 
+	 * @param color
+	 * @return
+	 */
+	public boolean isCheckMate(Color color) {
+		return testCheckMate(color);
+	}
+
 	/**
 	 * Retorna o oponente de uma cor. Ex: Se o turno foi branco, o oponente  preto.
 	 * 
@@ -326,20 +1129,14 @@ public class ChessMatch {
 	 * Responsvel por localizar o Rei de uma determinada cor
 	 * 
 	 * @param color
-	 * @return ChessPiece
+	 * @return casa do rei no bitboard
 	 */
-	private ChessPiece king(Color color) {
-		List<Piece> list = listaPecas(color);
-		for (Piece p : list) {
-			if (p instanceof King) {
-				return (ChessPiece) p;
-			}
+	private int king(Color color) {
+		int square = board.kingSquare(color);
+		if (square < 0) {
+			throw new IllegalStateException("No existe o rei da cor " + color + " no tabuleiro!");
 		}
-		throw new IllegalStateException("No existe o rei da cor " + color + " no tabuleiro!");
-	}
-
-	private List<Piece> listaPecas(Color color) {
-		return pecasNoTabuleiro.stream().filter(x -> ((ChessPiece) x).getColor() == color).collect(Collectors.toList());
+		return square;
 	}
 
 	/**
@@ -349,47 +1146,188 @@ public class ChessMatch {
 	 * @return
 	 */
 	private boolean testCheck(Color color) {
-		Position kingPosition = king(color).getChessPosition().toPosition();
-		List<Piece> pecasOponente = pecasNoTabuleiro.stream()
-				.filter(x -> ((ChessPiece) x).getColor() == oponente(color)).collect(Collectors.toList());
-		for (Piece p : pecasOponente) {
-			boolean[][] mat = p.possibleMoves();
-			if (mat[kingPosition.getRow()][kingPosition.getColumn()]) {
-				return true;
-			}
-		}
-		return false;
+		return board.isAttacked(king(color), oponente(color));
 	}
 
 	private boolean testCheckMate(Color color) {
 		if (!testCheck(color)) {
 			return false;
 		}
-		List<Piece> list = listaPecas(color);
-		for (Piece p : list) {
-			boolean[][] mat = p.possibleMoves();
-			for (int i = 0; i < board.getRows(); i++) {
-				for (int j = 0; j < board.getColumns(); j++) {
-					if (mat[i][j]) {
-						Position source = ((ChessPiece) p).getChessPosition().toPosition();
-						Position target = new Position(i, j);
-						Piece capturedPiece = makeMove(source, target);
-						boolean testCheck = testCheck(color);
-						desfazMovimento(source, target, capturedPiece);
-						if (!testCheck) {
-							return false;
-						}
-					}
-				}
-			}
+		if (color == jogadorAtual) {
+			// a lista do ply sera usada para validar o proximo movimento
+			calcularLegais();
+			return quantidadeLegais == 0;
 		}
-		return true;
+		return gerarLegais(color, movimentosMate, null) == 0;
 	}
 
 	private void placeNewPiece(char column, int row, ChessPiece piece) {
 		board.placePiece(piece, new ChessPosition(column, row).toPosition());
 		pecasNoTabuleiro.add(piece);
-		pecasCapturadas.add(piece);
+	}
+
+	/**
+	 * Monta a partida a partir dos campos da notacao FEN: pecas, vez de jogar,
+	 * roques, en passant, relogio de meios-lances e numero da jogada. A leitura e
+	 * feita caractere a caractere, sem criar strings ou vetores intermediarios;
+	 * so as pecas sao alocadas. Os campos depois das pecas sao opcionais.
+	 * 
+	 * @param fen
+	 */
+	private void carregarFen(String fen) {
+		int n = fen.length();
+		int i = pularEspacos(fen, 0);
+		int row = 0;
+		int column = 0;
+		for (; i < n && fen.charAt(i) != ' '; i++) {
+			char c = fen.charAt(i);
+			if (c == '/') {
+				if (column != 8 || ++row > 7) {
+					throw new ChessException("FEN invalido: linha " + (row + 1) + " mal formada");
+				}
+				column = 0;
+				continue;
+			}
+			if (c >= '1' && c <= '8') {
+				column += c - '0';
+			} else {
+				PieceType tipo = tipoFen(c);
+				if (tipo == null || column > 7) {
+					throw new ChessException("FEN invalido: caractere '" + c + "' na posicao " + i);
+				}
+				Color color = Character.isUpperCase(c) ? Color.WHITE : Color.BLACK;
+				ChessPiece piece = newPiece(tipo, color);
+				board.placePiece(piece, board.position(ChessBoard.square(row, column)));
+				pecasNoTabuleiro.add(piece);
+				column++;
+			}
+			if (column > 8) {
+				throw new ChessException("FEN invalido: linha " + (row + 1) + " com mais de 8 casas");
+			}
+		}
+		if (row != 7 || column != 8) {
+			throw new ChessException("FEN invalido: sao esperadas 8 linhas de 8 casas");
+		}
+		if (Long.bitCount(board.pieces(Color.WHITE, PieceType.KING)) != 1
+				|| Long.bitCount(board.pieces(Color.BLACK, PieceType.KING)) != 1) {
+			throw new ChessException("FEN invalido: cada cor precisa de um rei");
+		}
+		if (((board.pieces(Color.WHITE, PieceType.PAWN) | board.pieces(Color.BLACK, PieceType.PAWN))
+				& PRIMEIRA_E_ULTIMA_LINHA) != 0) {
+			throw new ChessException("FEN invalido: peao na primeira ou na ultima linha");
+		}
+
+		i = pularEspacos(fen, i);
+		jogadorAtual = Color.WHITE;
+		if (i < n) {
+			char c = fen.charAt(i++);
+			if (c == 'b') {
+				jogadorAtual = Color.BLACK;
+			} else if (c != 'w') {
+				throw new ChessException("FEN invalido: vez de jogar '" + c + "'");
+			}
+		}
+		// o rei de quem nao joga em cheque so seria possivel com a captura do rei
+		if (board.isAttacked(board.kingSquare(oponente(jogadorAtual)), jogadorAtual)) {
+			throw new ChessException("FEN invalido: o lado que nao joga esta em cheque");
+		}
+
+		i = pularEspacos(fen, i);
+		castlingRights = 0;
+		for (; i < n && fen.charAt(i) != ' '; i++) {
+			switch (fen.charAt(i)) {
+			case 'K':
+				castlingRights |= WHITE_KINGSIDE;
+				break;
+			case 'Q':
+				castlingRights |= WHITE_QUEENSIDE;
+				break;
+			case 'k':
+				castlingRights |= BLACK_KINGSIDE;
+				break;
+			case 'q':
+				castlingRights |= BLACK_QUEENSIDE;
+				break;
+			case '-':
+				break;
+			default:
+				throw new ChessException("FEN invalido: roque '" + fen.charAt(i) + "'");
+			}
+		}
+		// um direito sem o rei ou a torre na casa inicial nao existe; mante-lo
+		// mudaria o FEN e o hash de uma posicao igual
+		for (int sq : CASAS_ROQUE) {
+			ChessPiece piece = board.piece(sq);
+			PieceType tipo = ChessBoard.column(sq) == 4 ? PieceType.KING : PieceType.ROOK;
+			Color color = sq < 8 ? Color.BLACK : Color.WHITE;
+			if (piece == null || piece.getType() != tipo || piece.getColor() != color) {
+				castlingRights &= MASCARA_ROQUE[sq];
+			}
+		}
+
+		i = pularEspacos(fen, i);
+		if (i < n && fen.charAt(i) != '-') {
+			if (i + 1 >= n || fen.charAt(i) < 'a' || fen.charAt(i) > 'h' || fen.charAt(i + 1) < '1'
+					|| fen.charAt(i + 1) > '8') {
+				throw new ChessException("FEN invalido: casa de en passant");
+			}
+			int alvo = ChessBoard.square('8' - fen.charAt(i + 1), fen.charAt(i) - 'a');
+			int casaPeao = jogadorAtual == Color.WHITE ? alvo + 8 : alvo - 8;
+			ChessPiece pawn = casaPeao >= 0 && casaPeao < 64 ? board.piece(casaPeao) : null;
+			if (pawn != null && pawn.getType() == PieceType.PAWN && pawn.getColor() != jogadorAtual) {
+				enPassantVulnerable = pawn;
+			}
+			i += 2;
+		} else if (i < n) {
+			i++;
+		}
+
+		i = pularEspacos(fen, i);
+		halfmoveClock = 0;
+		for (; i < n && fen.charAt(i) != ' '; i++) {
+			halfmoveClock = halfmoveClock * 10 + digitoFen(fen, i);
+		}
+
+		i = pularEspacos(fen, i);
+		int jogada = 0;
+		for (; i < n && fen.charAt(i) != ' '; i++) {
+			jogada = jogada * 10 + digitoFen(fen, i);
+		}
+		turno = 2 * (Math.max(jogada, 1) - 1) + (jogadorAtual == Color.WHITE ? 1 : 2);
+	}
+
+	private static int pularEspacos(String fen, int i) {
+		while (i < fen.length() && fen.charAt(i) == ' ') {
+			i++;
+		}
+		return i;
+	}
+
+	private static int digitoFen(String fen, int i) {
+		char c = fen.charAt(i);
+		if (c < '0' || c > '9') {
+			throw new ChessException("FEN invalido: numero esperado na posicao " + i);
+		}
+		return c - '0';
+	}
+
+	private static PieceType tipoFen(char c) {
+		switch (Character.toLowerCase(c)) {
+		case 'p':
+			return PieceType.PAWN;
+		case 'n':
+			return PieceType.KNIGHT;
+		case 'b':
+			return PieceType.BISHOP;
+		case 'r':
+			return PieceType.ROOK;
+		case 'q':
+			return PieceType.QUEEN;
+		case 'k':
+			return PieceType.KING;
+		default:
+			return null;
+		}
 	}
 
 	/**
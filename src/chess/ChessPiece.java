@@ -17,6 +17,17 @@ public abstract class ChessPiece extends Piece {
 	public Color getColor() {
 		return color;
 	}
+
+	/**
+	 * Tipo da peca, usado para indexar os bitboards do tabuleiro
+	 * 
+	 * @return
+	 */
+	public abstract PieceType getType();
+
+	protected ChessBoard getChessBoard() {
+		return (ChessBoard) getBoard();
+	}
 	
 	public int getMoveCount() {
 		return moveCount;
@@ -29,6 +40,15 @@ public abstract class ChessPiece extends Piece {
 	public void deacreaseMoveCount() {
 		moveCount--;
 	}
+	/**
+	 * Casa da peca no bitboard, ou -1 se ela nao estiver no tabuleiro
+	 * 
+	 * @return
+	 */
+	public int getSquare() {
+		return position == null ? -1 : ChessBoard.square(position);
+	}
+
 	/**
 	 * Retorna uma posicao no formato do xadrez
 	 * @return
@@ -36,6 +56,56 @@ public abstract class ChessPiece extends Piece {
 	public ChessPosition getChessPosition() {
 	     return ChessPosition.fromPosition(position);
 	}
+	/**
+	 * Casas de destino possiveis da peca, sem alocar memoria
+	 * 
+	 * @return bitboard dos destinos
+	 */
+	public abstract long possibleMovesBitboard();
+
+	/**
+	 * Adaptador para a matriz de movimentos possiveis usada pela UI
+	 */
+	@Override
+	public boolean[][] possibleMoves() {
+		long destinos = possibleMovesBitboard();
+		boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
+		while (destinos != 0) {
+			int sq = Long.numberOfTrailingZeros(destinos);
+			mat[ChessBoard.row(sq)][ChessBoard.column(sq)] = true;
+			destinos &= destinos - 1;
+		}
+		return mat;
+	}
+
+	@Override
+	public boolean possibleMove(Position position) {
+		return (possibleMovesBitboard() & (1L << ChessBoard.square(position))) != 0;
+	}
+
+	@Override
+	public boolean isThereAnyPossibleMove() {
+		return possibleMovesBitboard() != 0;
+	}
+
+	/**
+	 * Escreve os movimentos possiveis da peca, codificados por {@link Move}, no
+	 * buffer informado a partir do indice count
+	 * 
+	 * @param moves - buffer reutilizavel
+	 * @param count - quantidade de movimentos ja escritos no buffer
+	 * @return nova quantidade de movimentos no buffer
+	 */
+	public int generateMoves(int[] moves, int count) {
+		int from = getSquare();
+		long destinos = possibleMovesBitboard();
+		while (destinos != 0) {
+			moves[count++] = Move.encode(from, Long.numberOfTrailingZeros(destinos));
+			destinos &= destinos - 1;
+		}
+		return count;
+	}
+
 	/**
 	 * Verifica se existe uma peca adversaria na matriz do tabuleiro
 	 * 
@@ -43,7 +113,7 @@ public abstract class ChessPiece extends Piece {
 	 * @return
 	 */
 	protected boolean isThereOpponentPiece(Position position) {
-		ChessPiece p = (ChessPiece)getBoard().piece(position);
-		return p != null && p.getColor() != color; 
+		long inimigas = getChessBoard().occupancy() & ~getChessBoard().occupancy(color);
+		return (inimigas & (1L << ChessBoard.square(position))) != 0;
 	}
 }
@@ -35,6 +35,13 @@ public class ChessPosition {
 	protected Position toPosition() {
 		return new Position(8-row, column - 'a');
 	}
+	/**
+	 * Casa correspondente no bitboard do tabuleiro
+	 * @return
+	 */
+	public int getSquare() {
+		return ChessBoard.square(8 - row, column - 'a');
+	}
 	/**
 	 * Converte o output
 	 * @return
@@ -0,0 +1,35 @@
+package chess;
+
+/**
+ * Situacao da partida depois do ultimo movimento. Os empates por repeticao e
+ * pela regra dos 50 lances encerram a partida sem precisar de reclamacao, para
+ * que partidas entre programas nao fiquem em ciclo.
+ *
+ * @author fsouviei
+ *
+ */
+public enum GameStatus {
+	ACTIVE("Partida em andamento"),
+	CHECKMATE("Check mate"),
+	STALEMATE("Empate por afogamento"),
+	THREEFOLD_REPETITION("Empate pela tripla repeticao de posicao"),
+	FIFTY_MOVE_RULE("Empate pela regra dos 50 lances");
+
+	private final String message;
+
+	private GameStatus(String message) {
+		this.message = message;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public boolean isOver() {
+		return this != ACTIVE;
+	}
+
+	public boolean isDraw() {
+		return this != ACTIVE && this != CHECKMATE;
+	}
+}
@@ -0,0 +1,133 @@
+package chess;
+
+/**
+ * Codificacao compacta de um movimento em um int, usada pela geracao de
+ * movimentos sem alocacao: bits 0-5 casa de origem, bits 6-11 casa de destino
+ * e bits 12-14 o tipo da peca de promocao (0 = sem promocao). As casas seguem a
+ * numeracao de {@link ChessBoard}. Como o bit 15 nunca e usado, o movimento cabe
+ * em 16 bits sem perda (ver {@link #pack(int)}).
+ * 
+ * @author fsouviei
+ *
+ */
+public final class Move {
+
+	/**
+	 * Tamanho suficiente para o buffer de movimentos de qualquer posicao legal
+	 */
+	public static final int MAX_MOVES = 256;
+
+	public static final int NONE = 0;
+
+	private static final PieceType[] TIPOS = PieceType.values();
+	private static final int MAX_PROMOCAO = PieceType.QUEEN.ordinal();
+
+	private Move() {
+	}
+
+	public static int encode(int from, int to) {
+		return from | (to << 6);
+	}
+
+	public static int encode(int from, int to, PieceType promotion) {
+		return from | (to << 6) | (promotion.ordinal() << 12);
+	}
+
+	public static int from(int move) {
+		return move & 63;
+	}
+
+	public static int to(int move) {
+		return (move >>> 6) & 63;
+	}
+
+	/**
+	 * Retorna a peca de promocao do movimento ou null se nao houver. Um campo de
+	 * promocao fora de cavalo a dama, que so aparece em um movimento mal formado
+	 * (ver {@link #isWellFormed(int)}), tambem retorna null.
+	 * 
+	 * @param move
+	 * @return
+	 */
+	public static PieceType promotion(int move) {
+		int tipo = (move >>> 12) & 7;
+		return tipo == 0 || tipo > MAX_PROMOCAO ? null : TIPOS[tipo];
+	}
+
+	/**
+	 * Verifica a codificacao sem consultar nenhuma posicao: origem diferente do
+	 * destino e promocao ausente ou para cavalo, bispo, torre ou dama. Um int
+	 * vindo de um cliente, do livro de aberturas ou de um arquivo corrompido pode
+	 * nao passar neste teste.
+	 * 
+	 * @param move
+	 * @return
+	 */
+	public static boolean isWellFormed(int move) {
+		return from(move) != to(move) && ((move >>> 12) & 7) <= MAX_PROMOCAO;
+	}
+
+	/**
+	 * Forma de 16 bits do movimento, para armazenamento compacto
+	 * 
+	 * @param move
+	 * @return
+	 */
+	public static short pack(int move) {
+		return (short) move;
+	}
+
+	public static int unpack(short packed) {
+		return packed & 0x7FFF;
+	}
+
+	public static String squareToString(int square) {
+		return "" + (char) ('a' + ChessBoard.column(square)) + (8 - ChessBoard.row(square));
+	}
+
+	/**
+	 * Notacao de coordenadas, ex: e2e4, e7e8q. Uma promocao mal formada aparece
+	 * como '?'.
+	 * 
+	 * @param move
+	 * @return
+	 */
+	public static String toString(int move) {
+		String s = squareToString(from(move)) + squareToString(to(move));
+		int tipo = (move >>> 12) & 7;
+		if (tipo != 0) {
+			s += tipo > MAX_PROMOCAO ? '?' : "nbrq".charAt(tipo - 1);
+		}
+		return s;
+	}
+
+	/**
+	 * Le a notacao de coordenadas (e2e4, e7e8q) sem lancar excecao
+	 * 
+	 * @param text
+	 * @return o movimento, ou {@link #NONE} se o texto for mal formado
+	 */
+	public static int parse(CharSequence text) {
+		int n = text.length();
+		if (n != 4 && n != 5) {
+			return NONE;
+		}
+		int from = casa(text.charAt(0), text.charAt(1));
+		int to = casa(text.charAt(2), text.charAt(3));
+		if (from < 0 || to < 0 || from == to) {
+			return NONE;
+		}
+		if (n == 4) {
+			return encode(from, to);
+		}
+		int promotion = "nbrq".indexOf(Character.toLowerCase(text.charAt(4)));
+		return promotion < 0 ? NONE : encode(from, to, TIPOS[promotion + 1]);
+	}
+
+	private static int casa(char column, char row) {
+		if (column < 'a' || column > 'h' || row < '1' || row > '8') {
+			return -1;
+		}
+		return ChessBoard.square('8' - row, column - 'a');
+	}
+}
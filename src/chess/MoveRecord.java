@@ -0,0 +1,27 @@
+package chess;
+
+/**
+ * Registro de desfazer de um movimento: guarda tudo que o movimento altera e
+ * que nao pode ser deduzido do proprio movimento. Os registros ficam em uma
+ * pilha pre-alocada do {@link ChessMatch} e sao reutilizados a cada jogada.
+ * 
+ * @author fsouviei
+ *
+ */
+final class MoveRecord {
+
+	int move;
+	ChessPiece piece;
+	ChessPiece captured;
+	int capturedSquare;
+	ChessPiece promotedPiece;
+	int rookFrom;
+	int rookTo;
+
+	ChessPiece previousEnPassantVulnerable;
+	ChessPiece previousPromoted;
+	boolean previousCheck;
+	int previousCastlingRights;
+	long previousHash;
+	int previousHalfmoveClock;
+}
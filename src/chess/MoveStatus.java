@@ -0,0 +1,35 @@
+package chess;
+
+/**
+ * Resultado da validacao de um movimento. Permite rejeitar jogadas sem criar
+ * excecoes; as mensagens sao as mesmas das {@link ChessException} lancadas por
+ * {@link ChessMatch#executarMovimentoXadrez}.
+ * 
+ * @author fsouviei
+ *
+ */
+public enum MoveStatus {
+	OK("Movimento valido"),
+	MALFORMED("Movimento mal formado"),
+	GAME_OVER("A partida ja terminou"),
+	NO_PIECE("Nao ha peca na posicao de origem "),
+	WRONG_COLOR("A peca escolhida nao eh sua "),
+	NO_POSSIBLE_MOVES("Nao existe movimentos possiveis para peca escolhida "),
+	ILLEGAL_TARGET("A peca escolhida nao pode mover para posicao destino"),
+	INVALID_PROMOTION("Promocao invalida"),
+	SELF_CHECK("Voce nao pode se colocar em check!!!");
+
+	private final String message;
+
+	private MoveStatus(String message) {
+		this.message = message;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public boolean isOk() {
+		return this == OK;
+	}
+}
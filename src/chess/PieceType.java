@@ -0,0 +1,13 @@
+package chess;
+
+/**
+ * Tipos de peca do xadrez. A ordem define o indice do bitboard de cada tipo.
+ */
+public enum PieceType {
+	PAWN,
+	KNIGHT,
+	BISHOP,
+	ROOK,
+	QUEEN,
+	KING;
+}
@@ -0,0 +1,182 @@
+package chess;
+
+/**
+ * Copia imutavel de uma posicao, publicada pela {@link ChessMatch} ao final de
+ * cada movimento completo. Pode ser lida por qualquer numero de threads sem
+ * trava e nunca mostra um movimento pela metade, mesmo durante uma busca sobre
+ * a partida.
+ *
+ * As casas sao guardadas em quatro longs, 4 bits por casa (numeracao de
+ * {@link ChessBoard}): 0 para casa vazia, senao 1 + cor * 6 + tipo, pelos
+ * ordinais de {@link Color} e {@link PieceType}. O restante do estado cabe em
+ * um int:
+ *
+ * <pre>
+ * bit  0      jogador da vez (ordinal de Color)
+ * bits 1-4    direitos de roque
+ * bits 5-11   casa de destino do en passant + 1, 0 se nao houver
+ * bit  12     check
+ * bits 13-15  ordinal de GameStatus
+ * </pre>
+ *
+ * @author fsouviei
+ *
+ */
+public final class PositionSnapshot {
+
+	private static final Color[] CORES = Color.values();
+	private static final PieceType[] TIPOS = PieceType.values();
+	private static final GameStatus[] SITUACOES = GameStatus.values();
+	private static final String LETRAS_FEN = "pnbrqk";
+
+	private final long[] casas = new long[4];
+	private final int estado;
+	private final int halfmoveClock;
+	private final int turno;
+	private final long hash;
+
+	PositionSnapshot(ChessBoard board, Color jogadorAtual, int castlingRights, int enPassant, boolean check,
+			GameStatus status, int halfmoveClock, int turno, long hash) {
+		for (Color color : CORES) {
+			for (PieceType type : TIPOS) {
+				long codigo = 1 + color.ordinal() * 6 + type.ordinal();
+				long pecas = board.pieces(color, type);
+				while (pecas != 0) {
+					int sq = Long.numberOfTrailingZeros(pecas);
+					pecas &= pecas - 1;
+					casas[sq >>> 4] |= codigo << ((sq & 15) * 4);
+				}
+			}
+		}
+		this.estado = jogadorAtual.ordinal() | castlingRights << 1 | (enPassant + 1) << 5 | (check ? 1 << 12 : 0)
+				| status.ordinal() << 13;
+		this.halfmoveClock = halfmoveClock;
+		this.turno = turno;
+		this.hash = hash;
+	}
+
+	private int codigo(int square) {
+		return (int) (casas[square >>> 4] >>> ((square & 15) * 4)) & 15;
+	}
+
+	/**
+	 * Tipo da peca na casa informada, ou null se estiver vazia
+	 *
+	 * @param square - numeracao de {@link ChessBoard}
+	 * @return
+	 */
+	public PieceType getPieceType(int square) {
+		int c = codigo(square);
+		return c == 0 ? null : TIPOS[(c - 1) % 6];
+	}
+
+	/**
+	 * Cor da peca na casa informada, ou null se estiver vazia
+	 *
+	 * @param square - numeracao de {@link ChessBoard}
+	 * @return
+	 */
+	public Color getPieceColor(int square) {
+		int c = codigo(square);
+		return c == 0 ? null : CORES[(c - 1) / 6];
+	}
+
+	public Color getJogadorAtual() {
+		return CORES[estado & 1];
+	}
+
+	public int getTurno() {
+		return turno;
+	}
+
+	public int getCastlingRights() {
+		return (estado >>> 1) & 15;
+	}
+
+	/**
+	 * Casa para onde um peao pode capturar en passant, ou -1
+	 *
+	 * @return
+	 */
+	public int getEnPassantSquare() {
+		return ((estado >>> 5) & 127) - 1;
+	}
+
+	public boolean getCheck() {
+		return (estado & (1 << 12)) != 0;
+	}
+
+	public GameStatus getStatus() {
+		return SITUACOES[(estado >>> 13) & 7];
+	}
+
+	public int getHalfmoveClock() {
+		return halfmoveClock;
+	}
+
+	/**
+	 * Hash de Zobrist da posicao, o mesmo de {@link ChessMatch#getHash()}
+	 *
+	 * @return
+	 */
+	public long getHash() {
+		return hash;
+	}
+
+	/**
+	 * Posicao na notacao FEN
+	 *
+	 * @return
+	 */
+	public String toFen() {
+		return appendFen(new StringBuilder(90)).toString();
+	}
+
+	public StringBuilder appendFen(StringBuilder sb) {
+		for (int row = 0; row < 8; row++) {
+			int vazias = 0;
+			for (int column = 0; column < 8; column++) {
+				int c = codigo(ChessBoard.square(row, column));
+				if (c == 0) {
+					vazias++;
+					continue;
+				}
+				if (vazias > 0) {
+					sb.append((char) ('0' + vazias));
+					vazias = 0;
+				}
+				char letra = LETRAS_FEN.charAt((c - 1) % 6);
+				sb.append(CORES[(c - 1) / 6] == Color.WHITE ? Character.toUpperCase(letra) : letra);
+			}
+			if (vazias > 0) {
+				sb.append((char) ('0' + vazias));
+			}
+			if (row < 7) {
+				sb.append('/');
+			}
+		}
+		sb.append(getJogadorAtual() == Color.WHITE ? " w " : " b ");
+		int roque = getCastlingRights();
+		if (roque == 0) {
+			sb.append('-');
+		} else {
+			if ((roque & ChessMatch.WHITE_KINGSIDE) != 0) sb.append('K');
+			if ((roque & ChessMatch.WHITE_QUEENSIDE) != 0) sb.append('Q');
+			if ((roque & ChessMatch.BLACK_KINGSIDE) != 0) sb.append('k');
+			if ((roque & ChessMatch.BLACK_QUEENSIDE) != 0) sb.append('q');
+		}
+		sb.append(' ');
+		int alvo = getEnPassantSquare();
+		if (alvo >= 0) {
+			sb.append((char) ('a' + ChessBoard.column(alvo))).append((char) ('8' - ChessBoard.row(alvo)));
+		} else {
+			sb.append('-');
+		}
+		return sb.append(' ').append(halfmoveClock).append(' ').append((turno + 1) / 2);
+	}
+
+	@Override
+	public String toString() {
+		return toFen();
+	}
+}
@@ -0,0 +1,48 @@
+package chess;
+
+/**
+ * Resultado da validacao de uma sequencia de movimentos: quantos movimentos,
+ * a partir do inicio, sao validos e o motivo da rejeicao do primeiro invalido
+ * 
+ * @author fsouviei
+ *
+ */
+public final class SequenceValidation {
+
+	private final int validMoves;
+	private final MoveStatus status;
+
+	public SequenceValidation(int validMoves, MoveStatus status) {
+		this.validMoves = validMoves;
+		this.status = status;
+	}
+
+	/**
+	 * Quantidade de movimentos validos antes do primeiro rejeitado; igual ao
+	 * tamanho da sequencia quando todos sao validos
+	 * 
+	 * @return
+	 */
+	public int getValidMoves() {
+		return validMoves;
+	}
+
+	/**
+	 * {@link MoveStatus#OK} se todos forem validos, senao o motivo da rejeicao do
+	 * movimento de indice {@link #getValidMoves()}
+	 * 
+	 * @return
+	 */
+	public MoveStatus getStatus() {
+		return status;
+	}
+
+	public boolean isValid() {
+		return status == MoveStatus.OK;
+	}
+
+	@Override
+	public String toString() {
+		return isValid() ? "OK (" + validMoves + ")" : status + " no movimento " + (validMoves + 1);
+	}
+}
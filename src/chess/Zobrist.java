@@ -0,0 +1,65 @@
+package chess;
+
+/**
+ * Chaves aleatorias de Zobrist para identificar uma posicao com um numero de 64
+ * bits: uma chave por peca/cor/casa, uma para a vez das pretas, uma por
+ * combinacao de direitos de roque e uma por coluna de en passant. A semente e
+ * fixa, entao as chaves (e os hashes gravados em arquivo) sao os mesmos entre
+ * execucoes.
+ * 
+ * @author fsouviei
+ *
+ */
+public final class Zobrist {
+
+	private static final long[][] PIECES = new long[12][64];
+	private static final long[] CASTLING = new long[16];
+	private static final long[] EN_PASSANT = new long[8];
+	private static final long BLACK_TO_MOVE;
+
+	private static long semente = 0x5D588B656C078965L;
+
+	static {
+		for (int i = 0; i < 12; i++) {
+			for (int sq = 0; sq < 64; sq++) {
+				PIECES[i][sq] = proximoAleatorio();
+			}
+		}
+		for (int i = 0; i < 16; i++) {
+			CASTLING[i] = proximoAleatorio();
+		}
+		for (int i = 0; i < 8; i++) {
+			EN_PASSANT[i] = proximoAleatorio();
+		}
+		BLACK_TO_MOVE = proximoAleatorio();
+	}
+
+	private Zobrist() {
+	}
+
+	public static long piece(Color color, PieceType type, int square) {
+		return PIECES[color.ordinal() * 6 + type.ordinal()][square];
+	}
+
+	public static long castling(int castlingRights) {
+		return CASTLING[castlingRights];
+	}
+
+	public static long enPassant(int column) {
+		return EN_PASSANT[column];
+	}
+
+	public static long blackToMove() {
+		return BLACK_TO_MOVE;
+	}
+
+	/**
+	 * Gerador xorshift64*
+	 */
+	private static long proximoAleatorio() {
+		semente ^= semente >>> 12;
+		semente ^= semente << 25;
+		semente ^= semente >>> 27;
+		return semente * 0x2545F4914F6CDD1DL;
+	}
+}
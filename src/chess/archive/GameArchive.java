@@ -0,0 +1,233 @@
+package chess.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import chess.ChessMatch;
+import chess.Move;
+
+/**
+ * Arquivo binario de partidas, lido por mapeamento em memoria. Formato (little
+ * endian):
+ *
+ * <pre>
+ * cabecalho   int magic, int versao
+ * partidas    u16 meios-lances, u8 resultado, u8 flags,
+ *             [u8 tamanho + FEN ASCII, se flags tiver FLAG_FEN],
+ *             u16 por movimento (ver {@link Move#pack(int)})
+ * indice      long posicao de cada partida
+ * rodape      long posicao do indice, int quantidade, int magic
+ * </pre>
+ *
+ * O acesso a uma partida pelo id e direto pelo indice. Arquivos maiores que
+ * 2 GB sao mapeados em segmentos sobrepostos, de modo que toda partida cabe
+ * inteira no segmento onde comeca. As consultas podem ser feitas por varias
+ * threads.
+ *
+ * @author fsouviei
+ *
+ */
+public class GameArchive implements Closeable {
+
+	public static final int RESULT_UNKNOWN = 0;
+	public static final int RESULT_WHITE_WINS = 1;
+	public static final int RESULT_BLACK_WINS = 2;
+	public static final int RESULT_DRAW = 3;
+
+	/**
+	 * Limite imposto pelo contador de 16 bits do cabecalho da partida
+	 */
+	public static final int MAX_PLIES = 0xFFFF;
+
+	static final int MAGIC = 0x31414743; // "CGA1"
+	static final int VERSION = 1;
+	static final int FILE_HEADER = 8;
+	static final int GAME_HEADER = 4;
+	static final int TRAILER = 16;
+	static final int FLAG_FEN = 1;
+
+	private static final long SEGMENTO = 1L << 30;
+	/**
+	 * Maior partida possivel: cabecalho, FEN e todos os movimentos
+	 */
+	private static final long SOBREPOSICAO = GAME_HEADER + 256 + 2L * MAX_PLIES;
+
+	private static final String[] RESULTADOS = { "*", "1-0", "0-1", "1/2-1/2" };
+
+	private final FileChannel channel;
+	private final MappedByteBuffer[] segmentos;
+	private final long indice;
+	private final int count;
+
+	public GameArchive(Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		long tamanho = channel.size();
+		if (tamanho < FILE_HEADER + TRAILER) {
+			channel.close();
+			throw new IOException("Arquivo de partidas invalido: " + file);
+		}
+		int n = (int) ((tamanho + SEGMENTO - 1) / SEGMENTO);
+		segmentos = new MappedByteBuffer[n];
+		for (int i = 0; i < n; i++) {
+			long inicio = i * SEGMENTO;
+			long tamanhoSegmento = Math.min(SEGMENTO + SOBREPOSICAO, tamanho - inicio);
+			segmentos[i] = channel.map(FileChannel.MapMode.READ_ONLY, inicio, tamanhoSegmento);
+			segmentos[i].order(ByteOrder.LITTLE_ENDIAN);
+		}
+		long rodape = tamanho - TRAILER;
+		if (lerInt(0) != MAGIC || lerInt(rodape + 12) != MAGIC) {
+			channel.close();
+			throw new IOException("Arquivo de partidas invalido ou incompleto: " + file);
+		}
+		indice = lerLong(rodape);
+		count = lerInt(rodape + 8);
+	}
+
+	/**
+	 * Quantidade de partidas
+	 *
+	 * @return
+	 */
+	public int size() {
+		return count;
+	}
+
+	public int plies(long id) {
+		long p = posicao(id);
+		return segmento(p).getShort(deslocamento(p)) & 0xFFFF;
+	}
+
+	/**
+	 * Resultado da partida, um dos codigos RESULT_*
+	 *
+	 * @param id
+	 * @return
+	 */
+	public int result(long id) {
+		long p = posicao(id);
+		return segmento(p).get(deslocamento(p) + 2);
+	}
+
+	/**
+	 * Posicao inicial da partida, ou null se for a posicao padrao
+	 *
+	 * @param id
+	 * @return
+	 */
+	public String startFen(long id) {
+		long p = posicao(id);
+		MappedByteBuffer s = segmento(p);
+		int d = deslocamento(p);
+		if ((s.get(d + 3) & FLAG_FEN) == 0) {
+			return null;
+		}
+		byte[] fen = new byte[s.get(d + GAME_HEADER) & 0xFF];
+		for (int i = 0; i < fen.length; i++) {
+			fen[i] = s.get(d + GAME_HEADER + 1 + i);
+		}
+		return new String(fen, StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Copia os movimentos da partida para o vetor informado
+	 *
+	 * @param id
+	 * @param moves - deve ter ao menos {@link #plies(long)} posicoes
+	 * @return quantidade de movimentos
+	 */
+	public int moves(long id, int[] moves) {
+		long p = posicao(id);
+		MappedByteBuffer s = segmento(p);
+		int d = inicioMovimentos(s, deslocamento(p));
+		int plies = plies(id);
+		for (int i = 0; i < plies; i++) {
+			moves[i] = Move.unpack(s.getShort(d + 2 * i));
+		}
+		return plies;
+	}
+
+	/**
+	 * Reproduz a partida executando cada movimento diretamente sobre a partida,
+	 * sem validacao (o arquivo so contem partidas ja validadas)
+	 *
+	 * @param id
+	 * @param match - partida na posicao inicial da partida gravada
+	 * @param plies - quantos movimentos reproduzir, no maximo
+	 * @return quantidade de movimentos executados
+	 */
+	public int replay(long id, ChessMatch match, int plies) {
+		long p = posicao(id);
+		MappedByteBuffer s = segmento(p);
+		int d = inicioMovimentos(s, deslocamento(p));
+		int n = Math.min(plies, plies(id));
+		for (int i = 0; i < n; i++) {
+			match.makeMove(Move.unpack(s.getShort(d + 2 * i)));
+		}
+		return n;
+	}
+
+	/**
+	 * Nova partida na posicao inicial da partida gravada
+	 *
+	 * @param id
+	 * @return
+	 */
+	public ChessMatch startPosition(long id) {
+		String fen = startFen(id);
+		return fen == null ? new ChessMatch() : new ChessMatch(fen);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	public static int resultCode(String result) {
+		for (int i = 0; i < RESULTADOS.length; i++) {
+			if (RESULTADOS[i].equals(result)) {
+				return i;
+			}
+		}
+		return RESULT_UNKNOWN;
+	}
+
+	public static String resultString(int code) {
+		return RESULTADOS[code];
+	}
+
+	private long posicao(long id) {
+		if (id < 0 || id >= count) {
+			throw new IndexOutOfBoundsException("Partida inexistente: " + id);
+		}
+		return lerLong(indice + 8 * id);
+	}
+
+	private static int inicioMovimentos(MappedByteBuffer s, int d) {
+		if ((s.get(d + 3) & FLAG_FEN) != 0) {
+			return d + GAME_HEADER + 1 + (s.get(d + GAME_HEADER) & 0xFF);
+		}
+		return d + GAME_HEADER;
+	}
+
+	private MappedByteBuffer segmento(long posicao) {
+		return segmentos[(int) (posicao / SEGMENTO)];
+	}
+
+	private static int deslocamento(long posicao) {
+		return (int) (posicao % SEGMENTO);
+	}
+
+	private int lerInt(long posicao) {
+		return segmento(posicao).getInt(deslocamento(posicao));
+	}
+
+	private long lerLong(long posicao) {
+		return segmento(posicao).getLong(deslocamento(posicao));
+	}
+}
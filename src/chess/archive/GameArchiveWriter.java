@@ -0,0 +1,109 @@
+package chess.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import chess.Move;
+
+/**
+ * Grava partidas no formato binario lido por {@link GameArchive}. A escrita e
+ * sequencial, por um buffer de tamanho fixo; o indice de posicoes das partidas
+ * fica em memoria (8 bytes por partida) e e gravado no final do arquivo por
+ * {@link #close()}. Pode ser usado por varias threads.
+ *
+ * @author fsouviei
+ *
+ */
+public class GameArchiveWriter implements Closeable {
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+	private long posicao;
+	private long[] offsets = new long[1024];
+	private int count;
+
+	public GameArchiveWriter(Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		buffer.putInt(GameArchive.MAGIC).putInt(GameArchive.VERSION);
+		posicao = GameArchive.FILE_HEADER;
+	}
+
+	/**
+	 * Acrescenta uma partida
+	 *
+	 * @param moves  - movimentos codificados por {@link Move}
+	 * @param plies  - quantidade de movimentos do vetor
+	 * @param result - um dos codigos RESULT_* de {@link GameArchive}
+	 * @param fen    - posicao inicial, ou null para a posicao padrao
+	 * @return id da partida no arquivo
+	 * @throws IOException
+	 */
+	public synchronized long append(int[] moves, int plies, int result, String fen) throws IOException {
+		if (plies > GameArchive.MAX_PLIES) {
+			throw new IllegalArgumentException("Partida com mais de " + GameArchive.MAX_PLIES + " meios-lances");
+		}
+		byte[] fenBytes = fen == null ? null : fen.getBytes(StandardCharsets.US_ASCII);
+		if (fenBytes != null && fenBytes.length > 255) {
+			throw new IllegalArgumentException("FEN muito longo");
+		}
+		if (count == offsets.length) {
+			offsets = Arrays.copyOf(offsets, count * 2);
+		}
+		offsets[count] = posicao;
+
+		garantir(GameArchive.GAME_HEADER);
+		buffer.putShort((short) plies);
+		buffer.put((byte) result);
+		buffer.put((byte) (fenBytes == null ? 0 : GameArchive.FLAG_FEN));
+		posicao += GameArchive.GAME_HEADER;
+		if (fenBytes != null) {
+			garantir(1 + fenBytes.length);
+			buffer.put((byte) fenBytes.length).put(fenBytes);
+			posicao += 1 + fenBytes.length;
+		}
+		for (int i = 0; i < plies; i++) {
+			garantir(2);
+			buffer.putShort(Move.pack(moves[i]));
+		}
+		posicao += 2L * plies;
+		return count++;
+	}
+
+	/**
+	 * Grava o indice e o rodape e fecha o arquivo
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		long indice = posicao;
+		for (int i = 0; i < count; i++) {
+			garantir(8);
+			buffer.putLong(offsets[i]);
+		}
+		garantir(GameArchive.TRAILER);
+		buffer.putLong(indice).putInt(count).putInt(GameArchive.MAGIC);
+		descarregar();
+		channel.close();
+	}
+
+	private void garantir(int bytes) throws IOException {
+		if (buffer.remaining() < bytes) {
+			descarregar();
+		}
+	}
+
+	private void descarregar() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
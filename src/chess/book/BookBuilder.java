@@ -0,0 +1,179 @@
+package chess.book;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.Move;
+import chess.archive.GameArchive;
+
+/**
+ * Monta um {@link OpeningBook} a partir das partidas de um {@link GameArchive}.
+ * Cada movimento jogado nos primeiros meios-lances de uma partida soma pontos
+ * para a posicao onde foi jogado: 2 quando o lado que moveu venceu, 1 no empate
+ * ou resultado desconhecido e 0 na derrota. O peso gravado e a pontuacao,
+ * limitada a 16 bits.
+ *
+ * @author fsouviei
+ *
+ */
+public class BookBuilder {
+
+	private static final int PESO_MAXIMO = 0xFFFF;
+
+	private final int maxPlies;
+	private final int minGames;
+	private final Map<Long, List<Estatistica>> posicoes = new HashMap<>();
+	private final int[] buffer = new int[GameArchive.MAX_PLIES];
+
+	/**
+	 * @param maxPlies - meios-lances de cada partida que entram no livro
+	 * @param minGames - movimentos jogados em menos partidas sao descartados
+	 */
+	public BookBuilder(int maxPlies, int minGames) {
+		this.maxPlies = maxPlies;
+		this.minGames = minGames;
+	}
+
+	/**
+	 * Acrescenta todas as partidas do arquivo
+	 *
+	 * @param archive
+	 */
+	public void add(GameArchive archive) {
+		for (long id = 0; id < archive.size(); id++) {
+			int plies = archive.moves(id, buffer);
+			add(archive.startPosition(id), buffer, plies, archive.result(id));
+		}
+	}
+
+	/**
+	 * Acrescenta uma partida
+	 *
+	 * @param match  - posicao inicial; e alterada
+	 * @param moves  - movimentos codificados por {@link Move}
+	 * @param plies  - quantidade de movimentos
+	 * @param result - codigo RESULT_* de {@link GameArchive}
+	 */
+	public void add(ChessMatch match, int[] moves, int plies, int result) {
+		int n = Math.min(plies, maxPlies);
+		for (int i = 0; i < n; i++) {
+			int pontos = pontos(result, match.getJogadorAtual());
+			List<Estatistica> lista = posicoes.computeIfAbsent(match.getHash(), k -> new ArrayList<>(2));
+			Estatistica e = null;
+			for (Estatistica candidata : lista) {
+				if (candidata.move == moves[i]) {
+					e = candidata;
+					break;
+				}
+			}
+			if (e == null) {
+				e = new Estatistica(moves[i]);
+				lista.add(e);
+			}
+			e.pontos += pontos;
+			e.partidas++;
+			match.makeMove(moves[i]);
+		}
+	}
+
+	/**
+	 * Grava o livro ordenado pela chave
+	 *
+	 * @param file
+	 * @return quantidade de entradas gravadas
+	 * @throws IOException
+	 */
+	public int write(Path file) throws IOException {
+		long[] chaves = new long[posicoes.size()];
+		int k = 0;
+		for (Long chave : posicoes.keySet()) {
+			chaves[k++] = chave;
+		}
+		// ordem sem sinal, a mesma da busca binaria do livro
+		for (int i = 0; i < chaves.length; i++) {
+			chaves[i] ^= Long.MIN_VALUE;
+		}
+		Arrays.sort(chaves);
+		for (int i = 0; i < chaves.length; i++) {
+			chaves[i] ^= Long.MIN_VALUE;
+		}
+
+		int entradas = 0;
+		ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			channel.position(OpeningBook.HEADER);
+			for (long chave : chaves) {
+				List<Estatistica> lista = posicoes.get(chave);
+				lista.sort((a, b) -> Long.compare(b.pontos, a.pontos));
+				for (Estatistica e : lista) {
+					if (e.partidas < minGames) {
+						continue;
+					}
+					if (buf.remaining() < OpeningBook.ENTRY) {
+						descarregar(channel, buf);
+					}
+					buf.putLong(chave);
+					buf.putShort(Move.pack(e.move));
+					buf.putShort((short) Math.min(e.pontos, PESO_MAXIMO));
+					buf.putInt(e.partidas);
+					entradas++;
+				}
+			}
+			descarregar(channel, buf);
+			buf.putInt(OpeningBook.MAGIC).putInt(OpeningBook.VERSION).putLong(entradas);
+			buf.flip();
+			channel.write(buf, 0);
+		}
+		return entradas;
+	}
+
+	/**
+	 * Quantidade de posicoes distintas acumuladas
+	 *
+	 * @return
+	 */
+	public int positions() {
+		return posicoes.size();
+	}
+
+	private static int pontos(int result, Color jogador) {
+		switch (result) {
+		case GameArchive.RESULT_WHITE_WINS:
+			return jogador == Color.WHITE ? 2 : 0;
+		case GameArchive.RESULT_BLACK_WINS:
+			return jogador == Color.BLACK ? 2 : 0;
+		default:
+			return 1;
+		}
+	}
+
+	private static void descarregar(FileChannel channel, ByteBuffer buf) throws IOException {
+		buf.flip();
+		while (buf.hasRemaining()) {
+			channel.write(buf);
+		}
+		buf.clear();
+	}
+
+	private static final class Estatistica {
+		final int move;
+		long pontos;
+		int partidas;
+
+		Estatistica(int move) {
+			this.move = move;
+		}
+	}
+}
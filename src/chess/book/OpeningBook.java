@@ -0,0 +1,164 @@
+package chess.book;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+import chess.ChessMatch;
+import chess.Move;
+import chess.MoveStatus;
+
+/**
+ * Livro de aberturas lido por mapeamento em memoria. O arquivo e uma tabela de
+ * entradas de 16 bytes ordenada pela chave de Zobrist da posicao (little
+ * endian):
+ *
+ * <pre>
+ * cabecalho   int magic, int versao, long quantidade
+ * entradas    long chave, u16 movimento (ver {@link Move#pack(int)}), u16 peso,
+ *             int partidas
+ * </pre>
+ *
+ * As entradas de uma mesma posicao sao consecutivas e vem do maior para o
+ * menor peso. A consulta e uma busca binaria direto sobre o arquivo mapeado,
+ * sem carregar nem converter entradas, e pode ser feita por varias threads.
+ *
+ * @author fsouviei
+ *
+ */
+public class OpeningBook implements Closeable {
+
+	static final int MAGIC = 0x31424743; // "CGB1"
+	static final int VERSION = 1;
+	static final int HEADER = 16;
+	static final int ENTRY = 16;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer dados;
+	private final int count;
+
+	public OpeningBook(Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		long tamanho = channel.size();
+		if (tamanho < HEADER || tamanho > Integer.MAX_VALUE) {
+			channel.close();
+			throw new IOException("Livro de aberturas invalido: " + file);
+		}
+		dados = channel.map(FileChannel.MapMode.READ_ONLY, 0, tamanho);
+		dados.order(ByteOrder.LITTLE_ENDIAN);
+		long n = dados.getLong(8);
+		if (dados.getInt(0) != MAGIC || HEADER + n * ENTRY != tamanho) {
+			channel.close();
+			throw new IOException("Livro de aberturas invalido: " + file);
+		}
+		count = (int) n;
+	}
+
+	/**
+	 * Quantidade de entradas (pares posicao/movimento)
+	 *
+	 * @return
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Movimentos do livro para a posicao
+	 *
+	 * @param key     - hash de Zobrist da posicao ({@link ChessMatch#getHash()})
+	 * @param moves   - recebe os movimentos, do maior para o menor peso
+	 * @param weights - recebe os pesos; pode ser null
+	 * @return quantidade de movimentos escritos
+	 */
+	public int probe(long key, int[] moves, int[] weights) {
+		int i = primeiraEntrada(key);
+		int n = 0;
+		for (; i < count && n < moves.length && chave(i) == key; i++) {
+			int p = HEADER + i * ENTRY;
+			moves[n] = Move.unpack(dados.getShort(p + 8));
+			if (weights != null) {
+				weights[n] = dados.getShort(p + 10) & 0xFFFF;
+			}
+			n++;
+		}
+		return n;
+	}
+
+	/**
+	 * Escolhe um movimento do livro para a posicao atual da partida. Cada
+	 * movimento e conferido contra as regras antes de ser devolvido, pois outra
+	 * posicao pode ter a mesma chave.
+	 *
+	 * @param match
+	 * @param random - true sorteia proporcionalmente ao peso; false devolve o de
+	 *               maior peso
+	 * @return o movimento, ou {@link Move#NONE} se a posicao nao estiver no livro
+	 */
+	public int move(ChessMatch match, boolean random) {
+		int primeira = primeiraEntrada(match.getHash());
+		int total = 0;
+		int ultima = primeira;
+		for (; ultima < count && chave(ultima) == match.getHash(); ultima++) {
+			total += peso(ultima);
+		}
+		if (ultima == primeira) {
+			return Move.NONE;
+		}
+		int sorteio = random && total > 0 ? ThreadLocalRandom.current().nextInt(total) : 0;
+		// percorre a partir do sorteado e, se ele for invalido, segue para os demais
+		int escolhida = primeira;
+		for (int i = primeira; i < ultima; i++) {
+			sorteio -= peso(i);
+			if (sorteio < 0) {
+				escolhida = i;
+				break;
+			}
+		}
+		int n = ultima - primeira;
+		for (int k = 0; k < n; k++) {
+			int i = primeira + (escolhida - primeira + k) % n;
+			int move = Move.unpack(dados.getShort(HEADER + i * ENTRY + 8));
+			if (match.validateMove(move) == MoveStatus.OK) {
+				return move;
+			}
+		}
+		return Move.NONE;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Primeira entrada com chave maior ou igual a informada. A comparacao e sem
+	 * sinal, na mesma ordem usada pelo {@link BookBuilder}.
+	 */
+	private int primeiraEntrada(long key) {
+		int lo = 0;
+		int hi = count;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (Long.compareUnsigned(chave(mid), key) < 0) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	private long chave(int i) {
+		return dados.getLong(HEADER + i * ENTRY);
+	}
+
+	private int peso(int i) {
+		return dados.getShort(HEADER + i * ENTRY + 10) & 0xFFFF;
+	}
+}
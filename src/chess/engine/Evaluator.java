@@ -0,0 +1,29 @@
+package chess.engine;
+
+import chess.ChessMatch;
+import chess.PieceType;
+
+/**
+ * Avaliacao estatica da posicao, em centipeoes, do ponto de vista do jogador
+ * atual: material e tabelas peca-casa interpolados entre meio-jogo e final
+ * pela fase de jogo. Os termos sao atualizados incrementalmente a cada
+ * movimento (ver {@link ChessMatch#getEvaluation()}), entao avaliar uma folha
+ * custa O(1).
+ *
+ * @author fsouviei
+ *
+ */
+public final class Evaluator {
+
+	/**
+	 * Valor de cada tipo de peca, na ordem de {@link PieceType}
+	 */
+	public static final int[] PIECE_VALUES = { 100, 320, 330, 500, 900, 0 };
+
+	private Evaluator() {
+	}
+
+	public static int evaluate(ChessMatch match) {
+		return match.getEvaluation();
+	}
+}
@@ -0,0 +1,148 @@
+package chess.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import chess.ChessMatch;
+import chess.tablebase.Tablebases;
+
+/**
+ * Busca paralela no estilo "Lazy SMP": todas as threads buscam a mesma posicao
+ * raiz, cada uma sobre sua propria copia da partida (tabuleiro e pecas
+ * proprios), e compartilham apenas a tabela de transposicao. O que uma thread
+ * descobre acelera as outras pela tabela. O resultado devolvido e o da thread
+ * principal; quando ela termina, as auxiliares sao interrompidas.
+ *
+ * @author fsouviei
+ *
+ */
+public class ParallelSearch implements AutoCloseable {
+
+	private final TranspositionTable tt;
+	private final AtomicBoolean parar = new AtomicBoolean();
+	private final Search[] workers;
+	private final ExecutorService auxiliares;
+
+	/**
+	 * @param threads   - total de threads de busca, incluindo a que chama
+	 *                  {@link #search}
+	 * @param megabytes - tamanho da tabela de transposicao compartilhada
+	 */
+	public ParallelSearch(int threads, int megabytes) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("E necessaria ao menos 1 thread");
+		}
+		tt = new TranspositionTable(megabytes);
+		workers = new Search[threads];
+		for (int i = 0; i < threads; i++) {
+			workers[i] = new Search(tt, parar);
+		}
+		auxiliares = threads > 1 ? Executors.newFixedThreadPool(threads - 1, r -> {
+			Thread t = new Thread(r, "search-helper");
+			t.setDaemon(true);
+			return t;
+		}) : null;
+	}
+
+	public int getThreads() {
+		return workers.length;
+	}
+
+	public TranspositionTable getTranspositionTable() {
+		return tt;
+	}
+
+	/**
+	 * Recebe o resultado de cada iteracao completa da thread principal
+	 *
+	 * @param listener - null para nao notificar
+	 * @see Search#setListener(Consumer)
+	 */
+	public void setListener(Consumer<SearchResult> listener) {
+		workers[0].setListener(listener);
+	}
+
+	/**
+	 * Tabelas de finais consultadas por todas as threads
+	 *
+	 * @param tablebases - null para nao consultar
+	 * @see Search#setTablebases(Tablebases)
+	 */
+	public void setTablebases(Tablebases tablebases) {
+		for (Search w : workers) {
+			w.setTablebases(tablebases);
+		}
+	}
+
+	/**
+	 * Busca o melhor movimento para o jogador atual com todas as threads
+	 *
+	 * @param match     - partida; nao e alterada
+	 * @param depth     - profundidade da thread principal; metade das auxiliares
+	 *                  busca um ply a mais para diversificar a arvore
+	 * @param nodeLimit - limite de nos da thread principal
+	 * @return resultado da thread principal, com o total de nos de todas as
+	 *         threads
+	 */
+	public SearchResult search(ChessMatch match, int depth, long nodeLimit) {
+		return search(match, new SearchLimits().setDepth(depth).setNodes(nodeLimit));
+	}
+
+	/**
+	 * Busca com aprofundamento iterativo em todas as threads. Os limites de tempo
+	 * e de nos valem para a thread principal; as auxiliares param quando ela
+	 * termina.
+	 *
+	 * @param match  - partida; nao e alterada
+	 * @param limits
+	 * @return resultado da thread principal, com sua variante principal e o
+	 *         total de nos de todas as threads
+	 */
+	public SearchResult search(ChessMatch match, SearchLimits limits) {
+		parar.set(false);
+		tt.newSearch();
+		List<Future<SearchResult>> tarefas = new ArrayList<>();
+		for (int i = 1; i < workers.length; i++) {
+			Search worker = workers[i];
+			ChessMatch copia = new ChessMatch(match);
+			SearchLimits auxiliar = new SearchLimits().setDepth(limits.getDepth() + (i & 1));
+			tarefas.add(auxiliares.submit(() -> worker.search(copia, auxiliar)));
+		}
+
+		SearchResult principal = workers[0].search(new ChessMatch(match), limits);
+		parar.set(true);
+
+		long nodes = principal.getNodes();
+		for (Future<SearchResult> tarefa : tarefas) {
+			try {
+				nodes += tarefa.get().getNodes();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Falha em uma thread de busca", e.getCause());
+			}
+		}
+		return new SearchResult(principal.getMove(), principal.getScore(), principal.getDepth(), nodes,
+				principal.getTimeMillis(), principal.getPv());
+	}
+
+	/**
+	 * Interrompe a busca em andamento; pode ser chamado de outra thread
+	 */
+	public void stop() {
+		parar.set(true);
+	}
+
+	@Override
+	public void close() {
+		if (auxiliares != null) {
+			auxiliares.shutdownNow();
+		}
+	}
+}
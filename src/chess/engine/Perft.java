@@ -0,0 +1,103 @@
+package chess.engine;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import chess.ChessMatch;
+import chess.Move;
+
+/**
+ * Perft: conta todos os caminhos de movimentos legais ate uma profundidade.
+ * Serve para medir a velocidade do gerador de movimentos e para conferir as
+ * regras contra contagens conhecidas.
+ *
+ * @author fsouviei
+ *
+ */
+public final class Perft {
+
+	private Perft() {
+	}
+
+	/**
+	 * Conta os nos folha a partir da posicao atual da partida. A partida e
+	 * alterada durante a contagem e restaurada ao final.
+	 *
+	 * @param match
+	 * @param depth
+	 * @return
+	 */
+	public static long perft(ChessMatch match, int depth) {
+		if (depth <= 0) {
+			return 1;
+		}
+		return contar(match, depth, new int[depth + 1][Move.MAX_MOVES]);
+	}
+
+	/**
+	 * Conta os nos folha separadamente para cada movimento da raiz. Cada
+	 * sub-arvore roda como uma tarefa do pool sobre uma copia propria da
+	 * partida.
+	 *
+	 * @param match
+	 * @param depth - profundidade total, contando o movimento da raiz
+	 * @param pool
+	 * @return contagem por movimento da raiz, na ordem de geracao
+	 */
+	public static Map<Integer, Long> divide(ChessMatch match, int depth, ForkJoinPool pool) {
+		int[] moves = new int[Move.MAX_MOVES];
+		int count = match.generateLegalMoves(moves);
+		Map<Integer, SubArvore> tarefas = new LinkedHashMap<>();
+		for (int i = 0; i < count; i++) {
+			tarefas.put(moves[i], new SubArvore(match, moves[i], depth - 1));
+		}
+		for (SubArvore tarefa : tarefas.values()) {
+			pool.execute(tarefa);
+		}
+		Map<Integer, Long> resultado = new LinkedHashMap<>();
+		for (Map.Entry<Integer, SubArvore> e : tarefas.entrySet()) {
+			resultado.put(e.getKey(), e.getValue().join());
+		}
+		return resultado;
+	}
+
+	private static long contar(ChessMatch match, int depth, int[][] buffers) {
+		int[] moves = buffers[depth];
+		int count = match.generateLegalMoves(moves);
+		if (depth == 1) {
+			// o gerador so emite movimentos legais: o ultimo nivel nao precisa
+			// ser executado
+			return count;
+		}
+		long nodes = 0;
+		for (int i = 0; i < count; i++) {
+			match.makeMove(moves[i]);
+			nodes += contar(match, depth - 1, buffers);
+			match.desfazMovimento();
+		}
+		return nodes;
+	}
+
+	/**
+	 * Sub-arvore de um movimento da raiz, contada sobre uma copia da partida
+	 */
+	private static class SubArvore extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+
+		private final ChessMatch match;
+		private final int depth;
+
+		SubArvore(ChessMatch raiz, int move, int depth) {
+			this.match = new ChessMatch(raiz);
+			this.match.makeMove(move);
+			this.depth = depth;
+		}
+
+		@Override
+		protected Long compute() {
+			return perft(match, depth);
+		}
+	}
+}
@@ -0,0 +1,481 @@
+package chess.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+import chess.Move;
+import chess.tablebase.Tablebases;
+
+/**
+ * Busca negamax com poda alfa-beta a partir da posicao atual de uma
+ * {@link ChessMatch}. Usa make/unmake sobre a propria partida (que e restaurada
+ * ao final), buffers de movimentos pre-alocados por ply, tabela de
+ * transposicao e busca de quiescencia nas capturas. Com tabelas de finais, as
+ * posicoes cobertas por elas nao sao buscadas: a raiz joga o movimento das
+ * tabelas e os demais nos usam o resultado exato. Uma posicao repetida na
+ * arvore, ou na partida desde o ultimo movimento irreversivel, vale empate.
+ *
+ * Uma instancia nao deve ser usada por duas threads ao mesmo tempo.
+ *
+ * @author fsouviei
+ *
+ */
+public class Search {
+
+	public static final int MAX_PLY = 128;
+	public static final int MATE = 30000;
+	private static final int INFINITO = 32000;
+
+	/**
+	 * Notas de ordenacao de movimentos
+	 */
+	private static final int MOVIMENTO_TABELA = 1 << 24;
+	private static final int CAPTURA = 1 << 20;
+
+	private final TranspositionTable tt;
+	private final AtomicBoolean parar;
+	private final boolean sinalProprio;
+	private final int[][] moves = new int[MAX_PLY][Move.MAX_MOVES];
+	private final int[][] ordem = new int[MAX_PLY][Move.MAX_MOVES];
+	private final int[] pv = new int[MAX_PLY];
+	private Consumer<SearchResult> listener;
+	private Tablebases tablebases;
+
+	private ChessMatch match;
+	private long nodes;
+	private long nodeLimit;
+	private boolean abortado;
+	private long prazo;
+	private int scoreRaiz;
+
+	public Search() {
+		this(new TranspositionTable(16));
+	}
+
+	public Search(TranspositionTable tt) {
+		this.tt = tt;
+		this.parar = new AtomicBoolean();
+		this.sinalProprio = true;
+	}
+
+	/**
+	 * Busca que compartilha a tabela de transposicao e o sinal de parada com
+	 * outras buscas. Quem cria o sinal e responsavel por limpa-lo antes de cada
+	 * busca e por chamar {@link TranspositionTable#newSearch()}.
+	 *
+	 * @param tt
+	 * @param stopFlag
+	 */
+	public Search(TranspositionTable tt, AtomicBoolean stopFlag) {
+		this.tt = tt;
+		this.parar = stopFlag;
+		this.sinalProprio = false;
+	}
+
+	/**
+	 * Pede que a busca em andamento termine o quanto antes; ela retorna o melhor
+	 * movimento concluido ate entao. Pode ser chamado de outra thread.
+	 */
+	public void stop() {
+		parar.set(true);
+	}
+
+	/**
+	 * Define quem recebe o resultado de cada iteracao completa do aprofundamento
+	 * iterativo, na thread da busca
+	 *
+	 * @param listener - null para nao notificar
+	 */
+	public void setListener(Consumer<SearchResult> listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Tabelas de finais consultadas durante a busca
+	 *
+	 * @param tablebases - null para nao consultar
+	 */
+	public void setTablebases(Tablebases tablebases) {
+		this.tablebases = tablebases;
+	}
+
+	/**
+	 * Busca o melhor movimento para o jogador atual ate a profundidade informada
+	 *
+	 * @param match     - partida; e alterada durante a busca e restaurada ao final
+	 * @param depth     - profundidade em plies
+	 * @param nodeLimit - limite de nos; a busca para ao atingi-lo e retorna o
+	 *                  melhor movimento encontrado ate entao
+	 * @return
+	 */
+	public SearchResult search(ChessMatch match, int depth, long nodeLimit) {
+		return search(match, new SearchLimits().setDepth(depth).setNodes(nodeLimit));
+	}
+
+	/**
+	 * Aprofundamento iterativo: busca nas profundidades 1, 2, 3... ate atingir o
+	 * limite de profundidade, de nos ou de tempo. Quando o tempo acaba no meio de
+	 * uma iteracao, retorna o resultado da ultima iteracao completa.
+	 *
+	 * @param match  - partida; e alterada durante a busca e restaurada ao final
+	 * @param limits
+	 * @return
+	 */
+	public SearchResult search(ChessMatch match, SearchLimits limits) {
+		long inicio = System.nanoTime();
+		this.match = match;
+		this.nodes = 0;
+		this.nodeLimit = limits.getNodes();
+		this.abortado = false;
+		if (sinalProprio) {
+			// buscas compartilhadas sao preparadas por quem as coordena
+			parar.set(false);
+			tt.newSearch();
+		}
+		long orcamento = limits.timeBudget(match.getJogadorAtual()) * 1_000_000;
+		this.prazo = orcamento > 0 ? inicio + orcamento : Long.MAX_VALUE;
+
+		if (tablebases != null) {
+			int move = tablebases.bestMove(match);
+			if (move != Move.NONE) {
+				SearchResult r = new SearchResult(move, scoreTabela(tablebases.probe(match), 0), 1, 0,
+						(System.nanoTime() - inicio) / 1_000_000);
+				if (listener != null) {
+					listener.accept(r);
+				}
+				return r;
+			}
+		}
+
+		SearchResult melhor = null;
+		for (int depth = 1; depth <= limits.getDepth(); depth++) {
+			int move = buscarRaiz(depth);
+			long decorrido = System.nanoTime() - inicio;
+			if (abortado && melhor != null) {
+				break;
+			}
+			melhor = new SearchResult(move, scoreRaiz, depth, nodes, decorrido / 1_000_000,
+					variantePrincipal(move, depth));
+			if (listener != null && !abortado) {
+				listener.accept(melhor);
+			}
+			if (abortado || move == Move.NONE || melhor.isMate()) {
+				break;
+			}
+			// a proxima iteracao custa varias vezes a atual: nao comeca se nao
+			// houver tempo para termina-la
+			if (orcamento > 0 && decorrido > orcamento / 2) {
+				break;
+			}
+		}
+		return new SearchResult(melhor.getMove(), melhor.getScore(), melhor.getDepth(), nodes,
+				(System.nanoTime() - inicio) / 1_000_000, melhor.getPv());
+	}
+
+	/**
+	 * Segue os melhores movimentos gravados na tabela de transposicao a partir do
+	 * movimento da raiz. Cada movimento da tabela e conferido contra os
+	 * movimentos legais, pois a entrada pode ser de outra posicao com a mesma
+	 * chave ou ter sido sobrescrita.
+	 */
+	private int[] variantePrincipal(int move, int depth) {
+		if (move == Move.NONE) {
+			return new int[0];
+		}
+		int n = 0;
+		pv[n++] = move;
+		match.makeMove(move);
+		while (n < depth) {
+			int proximo = ttMove(match.getHash());
+			if (proximo == Move.NONE || !legal(proximo)) {
+				break;
+			}
+			pv[n++] = proximo;
+			match.makeMove(proximo);
+		}
+		for (int i = 0; i < n; i++) {
+			match.desfazMovimento();
+		}
+		return Arrays.copyOf(pv, n);
+	}
+
+	private boolean legal(int move) {
+		int[] lista = moves[MAX_PLY - 1];
+		int count = match.generateLegalMoves(lista);
+		for (int i = 0; i < count; i++) {
+			if (lista[i] == move) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Uma iteracao completa a partir da raiz
+	 *
+	 * @return melhor movimento; o score fica em {@link #scoreRaiz}
+	 */
+	private int buscarRaiz(int depth) {
+		int[] lista = moves[0];
+		int count = match.generateLegalMoves(lista);
+		ordenar(0, lista, count, ttMove(match.getHash()));
+		int alpha = -INFINITO;
+		int bestMove = Move.NONE;
+		int bestScore = -INFINITO;
+		for (int i = 0; i < count; i++) {
+			int move = proximo(0, lista, count, i);
+			match.makeMove(move);
+			int score = -negamax(depth - 1, 1, -INFINITO, -alpha);
+			match.desfazMovimento();
+			if (abortado) {
+				break;
+			}
+			if (score > bestScore) {
+				bestScore = score;
+				bestMove = move;
+				alpha = Math.max(alpha, score);
+			}
+		}
+		if (bestMove == Move.NONE) {
+			if (count == 0) {
+				bestScore = match.isInCheck(match.getJogadorAtual()) ? -MATE : 0;
+			} else {
+				// sem tempo para concluir nenhum movimento: joga o primeiro legal
+				bestMove = lista[0];
+				bestScore = 0;
+			}
+		} else if (!abortado) {
+			tt.store(match.getHash(), bestMove, bestScore, depth, TranspositionTable.BOUND_EXACT);
+		}
+		scoreRaiz = bestScore;
+		return bestMove;
+	}
+
+	private int negamax(int depth, int ply, int alpha, int beta) {
+		if (depth <= 0) {
+			return quiescence(ply, alpha, beta);
+		}
+		if (++nodes >= nodeLimit || ((nodes & 1023) == 0 && deveParar())) {
+			abortado = true;
+		}
+		if (abortado) {
+			return 0;
+		}
+		if (match.isRepetition() || match.isFiftyMoveRule()) {
+			// o ciclo pode ser repetido ate a tripla repeticao: empate
+			return 0;
+		}
+		if (ply >= MAX_PLY - 1) {
+			return Evaluator.evaluate(match);
+		}
+		if (tablebases != null) {
+			int tb = tablebases.probe(match);
+			if (tb != Tablebases.UNKNOWN && Tablebases.plies(tb) + ply < MAX_PLY) {
+				return scoreTabela(tb, ply);
+			}
+		}
+
+		long hash = match.getHash();
+		long entrada = tt.probe(hash);
+		int ttMove = Move.NONE;
+		if (entrada != 0) {
+			ttMove = TranspositionTable.move(entrada);
+			if (TranspositionTable.depth(entrada) >= depth) {
+				int score = scoreDaTabela(TranspositionTable.score(entrada), ply);
+				int bound = TranspositionTable.bound(entrada);
+				if (bound == TranspositionTable.BOUND_EXACT
+						|| (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+						|| (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+					return score;
+				}
+			}
+		}
+
+		// movimentos pseudo-legais com a legalidade testada so nos que chegam a
+		// ser buscados: um corte beta costuma vir antes de a lista acabar
+		int[] lista = moves[ply];
+		int count = match.generateMoves(lista);
+		ordenar(ply, lista, count, ttMove);
+		Color jogador = match.getJogadorAtual();
+		int alphaOriginal = alpha;
+		int bestScore = -INFINITO;
+		int bestMove = Move.NONE;
+		for (int i = 0; i < count; i++) {
+			int move = proximo(ply, lista, count, i);
+			match.makeMove(move);
+			if (match.isInCheck(jogador)) {
+				match.desfazMovimento();
+				continue;
+			}
+			int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+			match.desfazMovimento();
+			if (abortado) {
+				return 0;
+			}
+			if (score > bestScore) {
+				bestScore = score;
+				bestMove = move;
+				if (score > alpha) {
+					alpha = score;
+					if (alpha >= beta) {
+						break;
+					}
+				}
+			}
+		}
+		if (bestMove == Move.NONE) {
+			// sem movimentos legais: check mate ou afogamento
+			return match.isInCheck(jogador) ? -MATE + ply : 0;
+		}
+
+		int bound = bestScore >= beta ? TranspositionTable.BOUND_LOWER
+				: bestScore > alphaOriginal ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+		tt.store(hash, bestMove, scoreParaTabela(bestScore, ply), depth, bound);
+		return bestScore;
+	}
+
+	/**
+	 * Estende a busca apenas com capturas ate a posicao ficar quieta
+	 */
+	private int quiescence(int ply, int alpha, int beta) {
+		if (++nodes >= nodeLimit || ((nodes & 1023) == 0 && deveParar())) {
+			abortado = true;
+		}
+		if (abortado) {
+			return 0;
+		}
+		int standPat = Evaluator.evaluate(match);
+		if (standPat >= beta || ply >= MAX_PLY - 1) {
+			return standPat;
+		}
+		alpha = Math.max(alpha, standPat);
+
+		// pseudo-legais de proposito: so as capturas sao tentadas, entao filtrar
+		// a lista inteira seria trabalho perdido
+		int[] lista = moves[ply];
+		int count = match.generateMoves(lista);
+		ordenar(ply, lista, count, Move.NONE);
+		Color jogador = match.getJogadorAtual();
+		for (int i = 0; i < count; i++) {
+			int move = proximo(ply, lista, count, i);
+			if (ordem[ply][i] < CAPTURA) {
+				// a ordenacao coloca as capturas primeiro
+				break;
+			}
+			match.makeMove(move);
+			if (match.isInCheck(jogador)) {
+				match.desfazMovimento();
+				continue;
+			}
+			int score = -quiescence(ply + 1, -beta, -alpha);
+			match.desfazMovimento();
+			if (abortado) {
+				return 0;
+			}
+			if (score >= beta) {
+				return score;
+			}
+			alpha = Math.max(alpha, score);
+		}
+		return alpha;
+	}
+
+	/**
+	 * Atribui uma nota a cada movimento: primeiro o da tabela de transposicao,
+	 * depois capturas e promocoes (vitima mais valiosa, atacante menos valioso)
+	 */
+	private void ordenar(int ply, int[] lista, int count, int ttMove) {
+		int[] notas = ordem[ply];
+		for (int i = 0; i < count; i++) {
+			int move = lista[i];
+			int nota = 0;
+			if (move == ttMove) {
+				nota = MOVIMENTO_TABELA;
+			} else {
+				if (match.isCapture(move)) {
+					ChessPiece vitima = match.getPiece(Move.to(move));
+					ChessPiece atacante = match.getPiece(Move.from(move));
+					int valorVitima = vitima == null ? Evaluator.PIECE_VALUES[0]
+							: Evaluator.PIECE_VALUES[vitima.getType().ordinal()];
+					nota = CAPTURA + valorVitima * 16 - Evaluator.PIECE_VALUES[atacante.getType().ordinal()] / 16;
+				}
+				if (Move.promotion(move) != null) {
+					nota += CAPTURA + Evaluator.PIECE_VALUES[Move.promotion(move).ordinal()];
+				}
+			}
+			notas[i] = nota;
+		}
+	}
+
+	/**
+	 * Ordenacao por selecao incremental: traz para a posicao i o movimento de
+	 * maior nota entre os restantes
+	 */
+	private int proximo(int ply, int[] lista, int count, int i) {
+		int[] notas = ordem[ply];
+		int melhor = i;
+		for (int j = i + 1; j < count; j++) {
+			if (notas[j] > notas[melhor]) {
+				melhor = j;
+			}
+		}
+		int move = lista[melhor];
+		lista[melhor] = lista[i];
+		lista[i] = move;
+		int nota = notas[melhor];
+		notas[melhor] = notas[i];
+		notas[i] = nota;
+		return move;
+	}
+
+	/**
+	 * Verificado a cada 1024 nos: pedido de parada ou prazo esgotado
+	 */
+	private boolean deveParar() {
+		return parar.get() || System.nanoTime() > prazo;
+	}
+
+	private int ttMove(long hash) {
+		long entrada = tt.probe(hash);
+		return entrada == 0 ? Move.NONE : TranspositionTable.move(entrada);
+	}
+
+	/**
+	 * Converte o resultado das tabelas de finais para a escala de mate da busca,
+	 * relativa a raiz
+	 */
+	private static int scoreTabela(int tb, int ply) {
+		if (tb == 0) {
+			return 0;
+		}
+		int plies = Tablebases.plies(tb) + ply;
+		return tb > 0 ? MATE - plies : -MATE + plies;
+	}
+
+	/**
+	 * Scores de mate sao gravados relativos a posicao, nao a raiz
+	 */
+	private static int scoreParaTabela(int score, int ply) {
+		if (score >= MATE - MAX_PLY) {
+			return score + ply;
+		}
+		if (score <= -MATE + MAX_PLY) {
+			return score - ply;
+		}
+		return score;
+	}
+
+	private static int scoreDaTabela(int score, int ply) {
+		if (score >= MATE - MAX_PLY) {
+			return score - ply;
+		}
+		if (score <= -MATE + MAX_PLY) {
+			return score + ply;
+		}
+		return score;
+	}
+}
@@ -0,0 +1,98 @@
+package chess.engine;
+
+import chess.Color;
+
+/**
+ * Limites de uma busca: profundidade, nos e tempo. O tempo pode ser fixo por
+ * jogada ou derivado do relogio restante e do incremento de cada cor.
+ *
+ * @author fsouviei
+ *
+ */
+public class SearchLimits {
+
+	/**
+	 * Margem deixada no relogio para a comunicacao e a execucao do movimento
+	 */
+	private static final long MARGEM_MILLIS = 30;
+
+	/**
+	 * Numero de jogadas que se supoe restar quando o controle nao informa
+	 */
+	private static final int JOGADAS_ESTIMADAS = 30;
+
+	private int depth = Search.MAX_PLY - 1;
+	private long nodes = Long.MAX_VALUE;
+	private long moveTime;
+	private long whiteTime;
+	private long blackTime;
+	private long whiteIncrement;
+	private long blackIncrement;
+	private int movesToGo;
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public SearchLimits setDepth(int depth) {
+		this.depth = Math.max(1, Math.min(depth, Search.MAX_PLY - 1));
+		return this;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public SearchLimits setNodes(long nodes) {
+		this.nodes = nodes;
+		return this;
+	}
+
+	/**
+	 * Tempo fixo para a jogada, em milissegundos
+	 */
+	public SearchLimits setMoveTime(long moveTime) {
+		this.moveTime = moveTime;
+		return this;
+	}
+
+	/**
+	 * Relogio restante de cada cor, em milissegundos
+	 */
+	public SearchLimits setClock(long whiteTime, long blackTime) {
+		this.whiteTime = whiteTime;
+		this.blackTime = blackTime;
+		return this;
+	}
+
+	public SearchLimits setIncrement(long whiteIncrement, long blackIncrement) {
+		this.whiteIncrement = whiteIncrement;
+		this.blackIncrement = blackIncrement;
+		return this;
+	}
+
+	public SearchLimits setMovesToGo(int movesToGo) {
+		this.movesToGo = movesToGo;
+		return this;
+	}
+
+	/**
+	 * Orcamento de tempo da jogada para a cor informada
+	 *
+	 * @param color - quem joga
+	 * @return milissegundos, ou 0 se a busca nao tiver limite de tempo
+	 */
+	public long timeBudget(Color color) {
+		if (moveTime > 0) {
+			return moveTime;
+		}
+		long restante = (color == Color.WHITE) ? whiteTime : blackTime;
+		if (restante <= 0) {
+			return 0;
+		}
+		long incremento = (color == Color.WHITE) ? whiteIncrement : blackIncrement;
+		int jogadas = movesToGo > 0 ? movesToGo : JOGADAS_ESTIMADAS;
+		long orcamento = restante / jogadas + incremento * 3 / 4;
+		return Math.max(1, Math.min(orcamento, restante - MARGEM_MILLIS));
+	}
+}
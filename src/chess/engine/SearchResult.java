@@ -0,0 +1,76 @@
+package chess.engine;
+
+import chess.Move;
+
+/**
+ * Resultado de uma busca: melhor movimento e sua avaliacao
+ *
+ * @author fsouviei
+ *
+ */
+public class SearchResult {
+
+	private final int move;
+	private final int score;
+	private final int depth;
+	private final long nodes;
+	private final long timeMillis;
+	private final int[] pv;
+
+	public SearchResult(int move, int score, int depth, long nodes, long timeMillis) {
+		this(move, score, depth, nodes, timeMillis, move == Move.NONE ? new int[0] : new int[] { move });
+	}
+
+	public SearchResult(int move, int score, int depth, long nodes, long timeMillis, int[] pv) {
+		this.move = move;
+		this.score = score;
+		this.depth = depth;
+		this.nodes = nodes;
+		this.timeMillis = timeMillis;
+		this.pv = pv;
+	}
+
+	/**
+	 * Melhor movimento codificado por {@link Move}, ou {@link Move#NONE} se nao
+	 * houver movimento legal
+	 */
+	public int getMove() {
+		return move;
+	}
+
+	/**
+	 * Avaliacao em centipeoes do ponto de vista de quem joga
+	 */
+	public int getScore() {
+		return score;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public long getTimeMillis() {
+		return timeMillis;
+	}
+
+	/**
+	 * Variante principal: o melhor movimento seguido da resposta esperada de cada
+	 * lado, recuperada da tabela de transposicao
+	 */
+	public int[] getPv() {
+		return pv;
+	}
+
+	public boolean isMate() {
+		return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+	}
+
+	@Override
+	public String toString() {
+		return Move.toString(move) + " score=" + score + " depth=" + depth + " nodes=" + nodes;
+	}
+}
@@ -0,0 +1,154 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * Tabela de transposicao compartilhada, de tamanho fixo, indexada pelo hash de
+ * Zobrist da posicao. Fica em um unico array de longs pre-alocado; cada entrada
+ * ocupa dois longs: (hash ^ dados) e dados. Uma leitura so e aceita quando
+ * (primeiro ^ segundo) reproduz o hash procurado, entao varias threads podem
+ * consultar e gravar sem sincronizacao: uma entrada corrompida por escritas
+ * concorrentes simplesmente nao e encontrada.
+ *
+ * Cada balde tem duas entradas: a primeira preferida por profundidade e a
+ * segunda sempre substituida.
+ *
+ * @author fsouviei
+ *
+ */
+public class TranspositionTable {
+
+	public static final int BOUND_EXACT = 1;
+	public static final int BOUND_LOWER = 2;
+	public static final int BOUND_UPPER = 3;
+
+	/**
+	 * Dois longs por entrada, duas entradas por balde
+	 */
+	private static final int LONGS_POR_BALDE = 4;
+
+	private final long[] tabela;
+	private final int mascara;
+	private volatile int geracao;
+
+	/**
+	 * @param megabytes - tamanho da tabela; o numero de baldes e arredondado para
+	 *                  baixo ate uma potencia de dois (no maximo 8 GB)
+	 */
+	public TranspositionTable(int megabytes) {
+		if (megabytes < 1) {
+			throw new IllegalArgumentException("O tamanho da tabela deve ser de ao menos 1 MB");
+		}
+		long baldes = Long.highestOneBit((long) megabytes * 1024 * 1024 / (LONGS_POR_BALDE * 8));
+		baldes = Math.min(baldes, 1L << 28);
+		tabela = new long[(int) baldes * LONGS_POR_BALDE];
+		mascara = (int) baldes - 1;
+	}
+
+	/**
+	 * Procura a posicao na tabela
+	 *
+	 * @param key - hash da posicao
+	 * @return os dados empacotados da entrada, ou 0 se a posicao nao estiver na
+	 *         tabela
+	 */
+	public long probe(long key) {
+		int i = indice(key);
+		for (int slot = 0; slot < LONGS_POR_BALDE; slot += 2) {
+			long dados = tabela[i + slot + 1];
+			if ((tabela[i + slot] ^ dados) == key && dados != 0) {
+				return dados;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Grava o resultado da busca de uma posicao
+	 *
+	 * @param key   - hash da posicao
+	 * @param move  - melhor movimento codificado por {@link chess.Move}, ou 0
+	 * @param score - avaliacao, em centipeoes
+	 * @param depth - profundidade da busca que produziu o resultado
+	 * @param bound - {@link #BOUND_EXACT}, {@link #BOUND_LOWER} ou
+	 *              {@link #BOUND_UPPER}
+	 */
+	public void store(long key, int move, int score, int depth, int bound) {
+		long dados = empacotar(move, score, depth, bound, geracao);
+		int i = indice(key);
+		long atual = tabela[i + 1];
+		boolean mesmaPosicao = (tabela[i] ^ atual) == key;
+		if (mesmaPosicao || atual == 0 || depth >= depth(atual) || age(atual) != geracao) {
+			// mantem o melhor movimento anterior se a nova busca nao encontrou um
+			if (move == 0 && mesmaPosicao) {
+				dados = empacotar(move(atual), score, depth, bound, geracao);
+			}
+			tabela[i] = key ^ dados;
+			tabela[i + 1] = dados;
+		} else {
+			tabela[i + 2] = key ^ dados;
+			tabela[i + 3] = dados;
+		}
+	}
+
+	/**
+	 * Marca o inicio de uma nova busca; entradas de buscas anteriores passam a ser
+	 * substituidas primeiro
+	 */
+	public void newSearch() {
+		geracao = (geracao + 1) & 0x3F;
+	}
+
+	public void clear() {
+		Arrays.fill(tabela, 0);
+	}
+
+	/**
+	 * Ocupacao aproximada da tabela em permil, amostrando os primeiros baldes
+	 *
+	 * @return
+	 */
+	public int hashfull() {
+		int amostra = Math.min(1000, mascara + 1);
+		int ocupadas = 0;
+		for (int b = 0; b < amostra; b++) {
+			if (tabela[b * LONGS_POR_BALDE + 1] != 0) {
+				ocupadas++;
+			}
+		}
+		return ocupadas * 1000 / amostra;
+	}
+
+	private int indice(long key) {
+		return ((int) key & mascara) * LONGS_POR_BALDE;
+	}
+
+	/**
+	 * Layout dos dados: bits 0-15 movimento, 16-31 score, 32-39 profundidade,
+	 * 40-41 tipo de limite, 42-47 geracao
+	 */
+	private static long empacotar(int move, int score, int depth, int bound, int geracao) {
+		return (move & 0xFFFFL) | ((score & 0xFFFFL) << 16) | ((depth & 0xFFL) << 32) | ((long) bound << 40)
+				| ((long) geracao << 42);
+	}
+
+	public static int move(long data) {
+		return (int) (data & 0xFFFF);
+	}
+
+	public static int score(long data) {
+		return (short) (data >>> 16);
+	}
+
+	public static int depth(long data) {
+		return (int) ((data >>> 32) & 0xFF);
+	}
+
+	public static int bound(long data) {
+		return (int) ((data >>> 40) & 3);
+	}
+
+	private static int age(long data) {
+		return (int) ((data >>> 42) & 0x3F);
+	}
+}
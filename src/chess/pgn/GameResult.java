@@ -0,0 +1,110 @@
+package chess.pgn;
+
+/**
+ * Resultado da reproducao de uma partida PGN pelas regras do jogo
+ *
+ * @author fsouviei
+ *
+ */
+public final class GameResult {
+
+	private final long index;
+	private final String white;
+	private final String black;
+	private final String result;
+	private final int plies;
+	private final String finalFen;
+	private final String error;
+	private final String startFen;
+	private final int[] moves;
+
+	public GameResult(long index, String white, String black, String result, int plies, String finalFen,
+			String error, String startFen, int[] moves) {
+		this.index = index;
+		this.white = white;
+		this.black = black;
+		this.result = result;
+		this.plies = plies;
+		this.finalFen = finalFen;
+		this.error = error;
+		this.startFen = startFen;
+		this.moves = moves;
+	}
+
+	public long getIndex() {
+		return index;
+	}
+
+	public String getWhite() {
+		return white;
+	}
+
+	public String getBlack() {
+		return black;
+	}
+
+	/**
+	 * Resultado declarado na tag Result ("1-0", "0-1", "1/2-1/2" ou "*")
+	 *
+	 * @return
+	 */
+	public String getResult() {
+		return result;
+	}
+
+	/**
+	 * Meios-lances reproduzidos; quando ha erro, os que foram aceitos antes dele
+	 *
+	 * @return
+	 */
+	public int getPlies() {
+		return plies;
+	}
+
+	/**
+	 * Posicao apos o ultimo lance aceito
+	 *
+	 * @return
+	 */
+	public String getFinalFen() {
+		return finalFen;
+	}
+
+	/**
+	 * Descricao do primeiro lance rejeitado, ou null se a partida for valida
+	 *
+	 * @return
+	 */
+	public String getError() {
+		return error;
+	}
+
+	/**
+	 * Posicao inicial da tag FEN, ou null se a partida comeca da posicao padrao
+	 *
+	 * @return
+	 */
+	public String getStartFen() {
+		return startFen;
+	}
+
+	/**
+	 * Movimentos aceitos, codificados por {@link chess.Move}; as primeiras
+	 * {@link #getPlies()} posicoes sao validas
+	 *
+	 * @return
+	 */
+	public int[] getMoves() {
+		return moves;
+	}
+
+	public boolean isValid() {
+		return error == null;
+	}
+
+	@Override
+	public String toString() {
+		return "#" + (index + 1) + " " + white + " x " + black + " " + result + " (" + plies + " plies)"
+				+ (error == null ? "" : ": " + error);
+	}
+}
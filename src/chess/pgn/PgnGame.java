@@ -0,0 +1,51 @@
+package chess.pgn;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Uma partida lida de um arquivo PGN: as tags do cabecalho e o texto dos
+ * movimentos, ainda sem interpretar
+ *
+ * @author fsouviei
+ *
+ */
+public final class PgnGame {
+
+	private final long index;
+	private final Map<String, String> tags;
+	private final String movetext;
+
+	public PgnGame(long index, Map<String, String> tags, String movetext) {
+		this.index = index;
+		this.tags = new LinkedHashMap<>(tags);
+		this.movetext = movetext;
+	}
+
+	/**
+	 * Posicao da partida no arquivo, a partir de 0
+	 *
+	 * @return
+	 */
+	public long getIndex() {
+		return index;
+	}
+
+	/**
+	 * Valor de uma tag do cabecalho, ou null se a tag nao existir
+	 *
+	 * @param name
+	 * @return
+	 */
+	public String getTag(String name) {
+		return tags.get(name);
+	}
+
+	public Map<String, String> getTags() {
+		return tags;
+	}
+
+	public String getMovetext() {
+		return movetext;
+	}
+}
@@ -0,0 +1,147 @@
+package chess.pgn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Le um arquivo PGN partida a partida por um {@link FileChannel}, com um buffer
+ * de tamanho fixo: o arquivo nunca e carregado inteiro, entao arquivos de
+ * varios gigabytes usam a mesma memoria que arquivos pequenos. Os bytes sao
+ * lidos como ISO-8859-1, a codificacao do padrao PGN.
+ *
+ * Uma nova partida comeca na primeira tag que aparece depois de um texto de
+ * movimentos. Linhas iniciadas por '%' sao ignoradas.
+ *
+ * @author fsouviei
+ *
+ */
+public class PgnReader implements Closeable {
+
+	private static final int TAMANHO_BUFFER = 1 << 20;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANHO_BUFFER);
+	private final StringBuilder linha = new StringBuilder(256);
+	private final StringBuilder movetext = new StringBuilder(1024);
+	private final Map<String, String> tags = new LinkedHashMap<>();
+	private boolean fimArquivo;
+	private String tagPendente;
+	private long proximoIndice;
+
+	public PgnReader(Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		buffer.flip();
+	}
+
+	/**
+	 * Le a proxima partida do arquivo
+	 *
+	 * @return a partida, ou null no fim do arquivo
+	 * @throws IOException
+	 */
+	public PgnGame next() throws IOException {
+		tags.clear();
+		movetext.setLength(0);
+		if (tagPendente != null) {
+			lerTag(tagPendente);
+			tagPendente = null;
+		}
+		while (lerLinha()) {
+			int inicio = 0;
+			while (inicio < linha.length() && Character.isWhitespace(linha.charAt(inicio))) {
+				inicio++;
+			}
+			if (inicio == linha.length() || linha.charAt(inicio) == '%') {
+				continue;
+			}
+			if (linha.charAt(inicio) == '[') {
+				if (movetext.length() > 0) {
+					tagPendente = linha.substring(inicio);
+					return partida();
+				}
+				lerTag(linha.substring(inicio));
+			} else {
+				movetext.append(linha, inicio, linha.length()).append('\n');
+			}
+		}
+		if (tags.isEmpty() && movetext.length() == 0) {
+			return null;
+		}
+		return partida();
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private PgnGame partida() {
+		return new PgnGame(proximoIndice++, tags, movetext.toString());
+	}
+
+	/**
+	 * Interpreta uma linha de tag no formato [Nome "Valor"]. Linhas mal formadas
+	 * sao ignoradas; o erro aparece ao reproduzir a partida, se for relevante.
+	 */
+	private void lerTag(String tag) {
+		int espaco = tag.indexOf(' ');
+		int aspas = tag.indexOf('"');
+		if (espaco < 2 || aspas < espaco) {
+			return;
+		}
+		StringBuilder valor = new StringBuilder();
+		for (int i = aspas + 1; i < tag.length(); i++) {
+			char c = tag.charAt(i);
+			if (c == '\\' && i + 1 < tag.length()) {
+				valor.append(tag.charAt(++i));
+			} else if (c == '"') {
+				break;
+			} else {
+				valor.append(c);
+			}
+		}
+		tags.put(tag.substring(1, espaco), valor.toString());
+	}
+
+	/**
+	 * Le a proxima linha para {@link #linha}, sem o terminador
+	 *
+	 * @return false no fim do arquivo
+	 */
+	private boolean lerLinha() throws IOException {
+		linha.setLength(0);
+		boolean leu = false;
+		while (true) {
+			if (!buffer.hasRemaining()) {
+				if (fimArquivo || !encherBuffer()) {
+					return leu;
+				}
+			}
+			leu = true;
+			byte b = buffer.get();
+			if (b == '\n') {
+				return true;
+			}
+			if (b != '\r') {
+				linha.append((char) (b & 0xFF));
+			}
+		}
+	}
+
+	private boolean encherBuffer() throws IOException {
+		buffer.clear();
+		int lidos = channel.read(buffer);
+		buffer.flip();
+		if (lidos <= 0) {
+			fimArquivo = true;
+			return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,214 @@
+package chess.pgn;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Move;
+
+/**
+ * Importacao de arquivos PGN: a thread que chama {@link #replay} le as partidas
+ * em sequencia com um {@link PgnReader} e as entrega a um conjunto de threads
+ * que reproduz os lances de cada uma pelas regras do jogo. A fila entre as duas
+ * etapas e limitada; quando enche, a propria leitura reproduz a partida, de
+ * modo que a memoria nao cresce com o tamanho do arquivo.
+ *
+ * @author fsouviei
+ *
+ */
+public class PgnReplay implements AutoCloseable {
+
+	private final int threads;
+	private final ExecutorService workers;
+
+	/**
+	 * @param threads - threads que reproduzem as partidas
+	 */
+	public PgnReplay(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("E necessaria ao menos 1 thread");
+		}
+		this.threads = threads;
+		workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(threads * 64), r -> {
+					Thread t = new Thread(r, "pgn-replay");
+					t.setDaemon(true);
+					return t;
+				}, new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Reproduz todas as partidas do arquivo. Lances ou FEN invalidos contam a
+	 * partida como erro e a importacao continua; uma excecao lancada pelo
+	 * consumidor interrompe a importacao e e relancada aqui com o indice da
+	 * partida.
+	 *
+	 * @param file
+	 * @param consumer - recebe o resultado de cada partida; e chamado de varias
+	 *                 threads e fora da ordem do arquivo
+	 * @return totais da importacao
+	 * @throws IOException tambem quando o consumidor falha com
+	 *                     {@link UncheckedIOException}
+	 */
+	public ReplaySummary replay(Path file, Consumer<GameResult> consumer) throws IOException {
+		long inicio = System.nanoTime();
+		AtomicLong games = new AtomicLong();
+		AtomicLong errors = new AtomicLong();
+		AtomicLong plies = new AtomicLong();
+		AtomicReference<RuntimeException> falha = new AtomicReference<>();
+		Phaser pendentes = new Phaser(1);
+		try (PgnReader reader = new PgnReader(file)) {
+			PgnGame game;
+			while (falha.get() == null && (game = reader.next()) != null) {
+				PgnGame atual = game;
+				pendentes.register();
+				workers.execute(() -> {
+					try {
+						if (falha.get() != null) {
+							return;
+						}
+						GameResult result = replay(atual);
+						games.incrementAndGet();
+						plies.addAndGet(result.getPlies());
+						if (!result.isValid()) {
+							errors.incrementAndGet();
+						}
+						consumer.accept(result);
+					} catch (RuntimeException e) {
+						// a tarefa pode rodar numa thread do pool, onde a excecao se
+						// perderia; guarda a primeira para a thread de leitura
+						Throwable causa = e instanceof UncheckedIOException ? e.getCause() : e;
+						falha.compareAndSet(null, new IllegalStateException(
+								"Partida " + atual.getIndex() + ": " + causa.getMessage(), e));
+					} finally {
+						pendentes.arriveAndDeregister();
+					}
+				});
+			}
+		} finally {
+			// espera as partidas que ainda estao na fila ou em reproducao
+			pendentes.arriveAndAwaitAdvance();
+		}
+		RuntimeException e = falha.get();
+		if (e != null) {
+			if (e.getCause() instanceof UncheckedIOException) {
+				throw new IOException(e.getMessage(), e.getCause().getCause());
+			}
+			throw e;
+		}
+		return new ReplaySummary(games.get(), errors.get(), plies.get(), (System.nanoTime() - inicio) / 1_000_000);
+	}
+
+	/**
+	 * Reproduz os lances de uma partida a partir da posicao inicial ou da tag FEN.
+	 * Comentarios, variantes, NAGs, numeros de lance e o resultado sao ignorados.
+	 *
+	 * @param game
+	 * @return
+	 */
+	public static GameResult replay(PgnGame game) {
+		String movetext = game.getMovetext();
+		ChessMatch match;
+		try {
+			String fen = game.getTag("FEN");
+			match = fen == null ? new ChessMatch() : new ChessMatch(fen);
+		} catch (ChessException e) {
+			return resultado(game, 0, null, e.getMessage(), new int[0]);
+		}
+
+		int[] buffer = new int[Move.MAX_MOVES];
+		int[] lances = new int[128];
+		StringBuilder lance = new StringBuilder(8);
+		int plies = 0;
+		int n = movetext.length();
+		int i = 0;
+		while (i < n) {
+			char c = movetext.charAt(i);
+			if (Character.isWhitespace(c)) {
+				i++;
+			} else if (c == '{') {
+				i = fechar(movetext, i, '{', '}');
+			} else if (c == '(') {
+				i = fechar(movetext, i, '(', ')');
+			} else if (c == ';') {
+				i = movetext.indexOf('\n', i);
+				i = i < 0 ? n : i;
+			} else if (c == '$') {
+				while (i < n && !Character.isWhitespace(movetext.charAt(i))) {
+					i++;
+				}
+			} else if (Character.isDigit(c) && !movetext.startsWith("0-0", i)) {
+				// numero do lance ("12.", "12...") ou resultado ("1-0", "1/2-1/2")
+				while (i < n && "0123456789.-/".indexOf(movetext.charAt(i)) >= 0) {
+					i++;
+				}
+			} else if (c == '.' || c == '*') {
+				i++;
+			} else {
+				lance.setLength(0);
+				while (i < n && !Character.isWhitespace(movetext.charAt(i)) && movetext.charAt(i) != '{'
+						&& movetext.charAt(i) != '(' && movetext.charAt(i) != ')') {
+					lance.append(movetext.charAt(i++));
+				}
+				try {
+					int move = San.parse(match, lance, buffer);
+					match.makeMove(move);
+					if (plies == lances.length) {
+						lances = Arrays.copyOf(lances, plies * 2);
+					}
+					lances[plies++] = move;
+				} catch (ChessException | IllegalArgumentException e) {
+					return resultado(game, plies, match.toFen(),
+							"lance " + (plies / 2 + 1) + (plies % 2 == 0 ? ". " : "... ") + e.getMessage(), lances);
+				}
+			}
+		}
+		return resultado(game, plies, match.toFen(), null, lances);
+	}
+
+	@Override
+	public void close() {
+		workers.shutdownNow();
+	}
+
+	private static GameResult resultado(PgnGame game, int plies, String fen, String error, int[] moves) {
+		String result = game.getTag("Result");
+		return new GameResult(game.getIndex(), game.getTag("White"), game.getTag("Black"),
+				result == null ? "*" : result, plies, fen, error, game.getTag("FEN"), moves);
+	}
+
+	/**
+	 * Indice seguinte ao delimitador que fecha o bloco iniciado em i,
+	 * considerando blocos aninhados
+	 */
+	private static int fechar(String texto, int i, char abre, char fecha) {
+		int nivel = 0;
+		for (; i < texto.length(); i++) {
+			char c = texto.charAt(i);
+			if (c == abre) {
+				nivel++;
+			} else if (c == fecha && --nivel == 0) {
+				return i + 1;
+			} else if (c == '{' && abre == '(') {
+				// comentario dentro de variante pode conter parenteses
+				i = fechar(texto, i, '{', '}') - 1;
+			}
+		}
+		return texto.length();
+	}
+}
@@ -0,0 +1,46 @@
+package chess.pgn;
+
+/**
+ * Totais de uma importacao de arquivo PGN
+ *
+ * @author fsouviei
+ *
+ */
+public final class ReplaySummary {
+
+	private final long games;
+	private final long errors;
+	private final long plies;
+	private final long timeMillis;
+
+	public ReplaySummary(long games, long errors, long plies, long timeMillis) {
+		this.games = games;
+		this.errors = errors;
+		this.plies = plies;
+		this.timeMillis = timeMillis;
+	}
+
+	public long getGames() {
+		return games;
+	}
+
+	public long getErrors() {
+		return errors;
+	}
+
+	public long getPlies() {
+		return plies;
+	}
+
+	public long getTimeMillis() {
+		return timeMillis;
+	}
+
+	@Override
+	public String toString() {
+		long gamesPerSecond = timeMillis == 0 ? 0 : games * 1000 / timeMillis;
+		long pliesPerSecond = timeMillis == 0 ? 0 : plies * 1000 / timeMillis;
+		return "partidas=" + games + " erros=" + errors + " plies=" + plies + " tempo=" + timeMillis + "ms partidas/s="
+				+ gamesPerSecond + " plies/s=" + pliesPerSecond;
+	}
+}
@@ -0,0 +1,201 @@
+package chess.pgn;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Move;
+import chess.PieceType;
+
+/**
+ * Conversao de movimentos na notacao algebrica padrao (SAN), como "Nbd7",
+ * "exd6", "e8=Q+" ou "O-O-O", para a codificacao de {@link Move}
+ *
+ * @author fsouviei
+ *
+ */
+public final class San {
+
+	/**
+	 * Letra SAN de cada tipo de peca, na ordem de {@link PieceType}
+	 */
+	private static final String LETRAS = "PNBRQK";
+
+	private San() {
+	}
+
+	/**
+	 * Encontra o movimento legal descrito por um lance SAN na posicao atual
+	 *
+	 * @param match  - partida; nao e alterada
+	 * @param san    - lance, com ou sem sufixos de cheque e anotacao (+, #, !, ?)
+	 * @param buffer - buffer de movimentos com ao menos {@link Move#MAX_MOVES}
+	 *               posicoes
+	 * @return o movimento
+	 * @throws ChessException se o lance for mal formado, ilegal ou ambiguo
+	 */
+	public static int parse(ChessMatch match, CharSequence san, int[] buffer) {
+		int fim = san.length();
+		while (fim > 0 && "+#!?".indexOf(san.charAt(fim - 1)) >= 0) {
+			fim--;
+		}
+		if (fim < 2) {
+			throw new ChessException("Lance invalido: " + san);
+		}
+
+		int count = match.generateLegalMoves(buffer);
+
+		char primeiro = san.charAt(0);
+		if (primeiro == 'O' || primeiro == '0') {
+			boolean grande = fim >= 5;
+			for (int i = 0; i < count; i++) {
+				int move = buffer[i];
+				int delta = Move.to(move) - Move.from(move);
+				ChessPiece piece = match.getPiece(Move.from(move));
+				if (piece.getType() == PieceType.KING && delta == (grande ? -2 : 2)) {
+					return move;
+				}
+			}
+			throw new ChessException("Roque ilegal: " + san);
+		}
+
+		PieceType tipo = PieceType.PAWN;
+		int i = 0;
+		if (primeiro >= 'A' && primeiro <= 'Z') {
+			tipo = tipoPeca(primeiro, san);
+			i = 1;
+		}
+
+		PieceType promocao = null;
+		if (san.charAt(fim - 1) >= 'A' && san.charAt(fim - 1) <= 'Z') {
+			promocao = tipoPeca(san.charAt(fim - 1), san);
+			fim--;
+			if (fim > 0 && san.charAt(fim - 1) == '=') {
+				fim--;
+			}
+		}
+		if (fim - i < 2) {
+			throw new ChessException("Lance invalido: " + san);
+		}
+		int to = casa(san.charAt(fim - 2), san.charAt(fim - 1), san);
+
+		// desambiguacao: coluna e/ou linha de origem, ignorando o 'x' de captura
+		int colunaOrigem = -1;
+		int linhaOrigem = -1;
+		for (int j = i; j < fim - 2; j++) {
+			char c = san.charAt(j);
+			if (c >= 'a' && c <= 'h') {
+				colunaOrigem = c - 'a';
+			} else if (c >= '1' && c <= '8') {
+				linhaOrigem = '8' - c;
+			} else if (c != 'x' && c != '-') {
+				throw new ChessException("Lance invalido: " + san);
+			}
+		}
+
+		int encontrado = Move.NONE;
+		for (int k = 0; k < count; k++) {
+			int move = buffer[k];
+			int from = Move.from(move);
+			if (Move.to(move) != to || Move.promotion(move) != promocao || match.getPiece(from).getType() != tipo) {
+				continue;
+			}
+			if ((colunaOrigem >= 0 && (from & 7) != colunaOrigem) || (linhaOrigem >= 0 && (from >>> 3) != linhaOrigem)) {
+				continue;
+			}
+			if (encontrado != Move.NONE) {
+				throw new ChessException("Lance ambiguo: " + san);
+			}
+			encontrado = move;
+		}
+		if (encontrado == Move.NONE) {
+			throw new ChessException("Lance ilegal: " + san);
+		}
+		return encontrado;
+	}
+
+	/**
+	 * Escreve um movimento legal na notacao SAN, com a desambiguacao minima e o
+	 * sufixo de cheque (+) ou mate (#)
+	 *
+	 * @param match  - partida; e alterada durante a escrita e restaurada ao final
+	 * @param move
+	 * @param buffer - buffer de movimentos com ao menos {@link Move#MAX_MOVES}
+	 *               posicoes
+	 * @return
+	 */
+	public static String toString(ChessMatch match, int move, int[] buffer) {
+		StringBuilder sb = new StringBuilder(8);
+		int from = Move.from(move);
+		int to = Move.to(move);
+		PieceType tipo = match.getPiece(from).getType();
+		if (tipo == PieceType.KING && (to == from + 2 || to == from - 2)) {
+			sb.append(to > from ? "O-O" : "O-O-O");
+		} else {
+			if (tipo == PieceType.PAWN) {
+				if (match.isCapture(move)) {
+					sb.append((char) ('a' + (from & 7)));
+				}
+			} else {
+				sb.append(LETRAS.charAt(tipo.ordinal()));
+				// outras pecas do mesmo tipo que chegam na mesma casa
+				boolean mesmaColuna = false;
+				boolean mesmaLinha = false;
+				boolean ambiguo = false;
+				int count = match.generateLegalMoves(buffer);
+				for (int i = 0; i < count; i++) {
+					int outro = buffer[i];
+					int origem = Move.from(outro);
+					if (origem == from || Move.to(outro) != to || match.getPiece(origem).getType() != tipo) {
+						continue;
+					}
+					ambiguo = true;
+					mesmaColuna |= (origem & 7) == (from & 7);
+					mesmaLinha |= (origem >>> 3) == (from >>> 3);
+				}
+				if (ambiguo && (!mesmaColuna || mesmaLinha)) {
+					sb.append((char) ('a' + (from & 7)));
+				}
+				if (mesmaColuna) {
+					sb.append((char) ('8' - (from >>> 3)));
+				}
+			}
+			if (match.isCapture(move)) {
+				sb.append('x');
+			}
+			sb.append((char) ('a' + (to & 7))).append((char) ('8' - (to >>> 3)));
+			if (Move.promotion(move) != null) {
+				sb.append('=').append(LETRAS.charAt(Move.promotion(move).ordinal()));
+			}
+		}
+		match.makeMove(move);
+		if (match.getCheck()) {
+			sb.append(match.generateLegalMoves(buffer) > 0 ? '+' : '#');
+		}
+		match.desfazMovimento();
+		return sb.toString();
+	}
+
+	private static int casa(char column, char row, CharSequence san) {
+		if (column < 'a' || column > 'h' || row < '1' || row > '8') {
+			throw new ChessException("Lance invalido: " + san);
+		}
+		return ('8' - row) * 8 + (column - 'a');
+	}
+
+	private static PieceType tipoPeca(char letra, CharSequence san) {
+		switch (letra) {
+		case 'N':
+			return PieceType.KNIGHT;
+		case 'B':
+			return PieceType.BISHOP;
+		case 'R':
+			return PieceType.ROOK;
+		case 'Q':
+			return PieceType.QUEEN;
+		case 'K':
+			return PieceType.KING;
+		default:
+			throw new ChessException("Lance invalido: " + san);
+		}
+	}
+}
@@ -1,9 +1,11 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Attacks;
+import chess.ChessBoard;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
 
 /**
  * Classe Torre
@@ -17,56 +19,19 @@ public class Bishop extends ChessPiece {
 		super(board, color);
 	}
 
+	@Override
+	public PieceType getType() {
+		return PieceType.BISHOP;
+	}
+
 	@Override
 	public String toString() {
 		return "B";
 	}
 
 	@Override
-	public boolean[][] possibleMoves() {
-		boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-		Position p = new Position(0, 0); // posicao auxiliar
-
-		// nw
-		p.setValues(position.getRow() - 1, position.getColumn()-1);
-		while (getBoard().positionExists(p) && !getBoard().thereIsPiece(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-			p.setValues(p.getRow()-1, p.getColumn()-1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		// ne
-		p.setValues(position.getRow()-1, position.getColumn() + 1);
-		while (getBoard().positionExists(p) && !getBoard().thereIsPiece(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-			p.setValues(p.getRow()-1, p.getColumn()+1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		// se
-		p.setValues(position.getRow()+1, position.getColumn() + 1);
-		while (getBoard().positionExists(p) && !getBoard().thereIsPiece(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-			p.setValues(p.getRow()+1,p.getColumn() + 1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		// sw
-		p.setValues(position.getRow() + 1, position.getColumn()-1);
-		while (getBoard().positionExists(p) && !getBoard().thereIsPiece(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-			p.setValues(p.getRow()+1,p.getColumn() - 1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		return mat;
+	public long possibleMovesBitboard() {
+		ChessBoard board = getChessBoard();
+		return Attacks.bishop(ChessBoard.square(position), board.occupancy()) & ~board.occupancy(getColor());
 	}
 }
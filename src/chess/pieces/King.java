@@ -1,10 +1,12 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Attacks;
+import chess.ChessBoard;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
 
 public class King extends ChessPiece {
 
@@ -16,107 +18,47 @@ public class King extends ChessPiece {
 	}
 
 	@Override
-	public String toString() {
-		return "K";
+	public PieceType getType() {
+		return PieceType.KING;
 	}
 
-	/**
-	 * Responsável por determinar quais os movimentos possiveis do rei
-	 * 
-	 * @param position
-	 * @return
-	 */
-	private boolean podeMover(Position position) {
-		ChessPiece p = (ChessPiece) getBoard().piece(position);
-		return p == null || p.getColor() != getColor();
+	@Override
+	public String toString() {
+		return "K";
 	}
 
 	/**
 	 * Metodo auxiliar para analisar o movimento de 'Roque'
 	 */
-	private boolean testRookCastling(Position position) {
-		ChessPiece p = (ChessPiece) getBoard().piece(position);
-		return p != null && p instanceof Rook && p.getColor() == getColor() && p.getMoveCount() == 0;
+	private boolean testRookCastling(int square) {
+		ChessPiece p = getChessBoard().piece(square);
+		return p instanceof Rook && p.getColor() == getColor();
 	}
 
 	@Override
-	public boolean[][] possibleMoves() {
-		boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-
-		Position p = new Position(0, 0);
-
-		// above
-		p.setValues(position.getRow() - 1, position.getColumn());
-		if (getBoard().positionExists(p) && podeMover(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		// below
-		p.setValues(position.getRow() + 1, position.getColumn());
-		if (getBoard().positionExists(p) && podeMover(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		// left
-		p.setValues(position.getRow(), position.getColumn() - 1);
-		if (getBoard().positionExists(p) && podeMover(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		// right
-		p.setValues(position.getRow(), position.getColumn() + 1);
-		if (getBoard().positionExists(p) && podeMover(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		// nw
-		p.setValues(position.getRow() - 1, position.getColumn() - 1);
-		if (getBoard().positionExists(p) && podeMover(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		// ne
-		p.setValues(position.getRow() - 1, position.getColumn() + 1);
-		if (getBoard().positionExists(p) && podeMover(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		// sw
-		p.setValues(position.getRow() + 1, position.getColumn() - 1);
-		if (getBoard().positionExists(p) && podeMover(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		// se
-		p.setValues(position.getRow() + 1, position.getColumn() + 1);
-		if (getBoard().positionExists(p) && podeMover(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
+	public long possibleMovesBitboard() {
+		ChessBoard board = getChessBoard();
+		int sq = getSquare();
+		long destinos = Attacks.king(sq) & ~board.occupancy(getColor());
 
 		// #specialmove castling
-		if (getMoveCount() == 0 && !chessMatch.getCheck()) {
+		// o rei nao pode rocar saindo de cheque nem passando por casa atacada. O
+		// cheque e testado na propria casa do rei: getCheck da partida descreve so
+		// o jogador da vez e nao e atualizado pelos movimentos da busca
+		Color oponente = (getColor() == Color.WHITE) ? Color.BLACK : Color.WHITE;
+		if (!board.isAttacked(sq, oponente)) {
+			int column = ChessBoard.column(sq);
 			// #specialmove castling kingside rook
-			Position posT1 = new Position(position.getRow(), position.getColumn() + 3);
-			if (testRookCastling(posT1)) {
-				Position p1 = new Position(position.getRow(), position.getColumn() + 1);
-				Position p2 = new Position(position.getRow(), position.getColumn() + 2);
-				if (getBoard().piece(p1) == null && getBoard().piece(p2) == null) {
-					mat[position.getRow()][position.getColumn() + 2] = true;
-				}
+			if (chessMatch.canCastle(getColor(), true) && column + 3 < 8 && testRookCastling(sq + 3)
+					&& (board.occupancy() & (3L << (sq + 1))) == 0 && !board.isAttacked(sq + 1, oponente)) {
+				destinos |= 1L << (sq + 2);
 			}
-
 			// #specialmove castling queenside rook
-			Position posT2 = new Position(position.getRow(), position.getColumn() - 4);
-			if (testRookCastling(posT2)) {
-				Position p1 = new Position(position.getRow(), position.getColumn() - 1);
-				Position p2 = new Position(position.getRow(), position.getColumn() - 2);
-				Position p3 = new Position(position.getRow(), position.getColumn() - 3);
-				if (getBoard().piece(p1) == null && getBoard().piece(p2) == null && getBoard().piece(p2) == null) {
-					mat[position.getRow()][position.getColumn() - 2] = true;
-				}
+			if (chessMatch.canCastle(getColor(), false) && column - 4 >= 0 && testRookCastling(sq - 4)
+					&& (board.occupancy() & (7L << (sq - 3))) == 0 && !board.isAttacked(sq - 1, oponente)) {
+				destinos |= 1L << (sq - 2);
 			}
 		}
-
-		return mat;
+		return destinos;
 	}
 }
@@ -1,9 +1,10 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Attacks;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
 
 public class Knight extends ChessPiece {
 
@@ -12,67 +13,17 @@ public class Knight extends ChessPiece {
 	}
 
 	@Override
-	public String toString() {
-		return "N";
+	public PieceType getType() {
+		return PieceType.KNIGHT;
 	}
 
-	/**
-	 * Responsável por determinar quais os movimentos possiveis
-	 * 
-	 * @param position
-	 * @return
-	 */
-	private boolean podeMover(Position position) {
-		ChessPiece p = (ChessPiece) getBoard().piece(position);
-		return p == null || p.getColor() != getColor();
+	@Override
+	public String toString() {
+		return "N";
 	}
 
 	@Override
-	public boolean[][] possibleMoves() {
-		boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-
-		Position p = new Position(0, 0);
-
-		p.setValues(position.getRow() - 1, position.getColumn()-2);
-		if (getBoard().positionExists(p) && podeMover(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		p.setValues(position.getRow() - 2, position.getColumn()-1);
-		if (getBoard().positionExists(p) && podeMover(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		p.setValues(position.getRow()-2, position.getColumn() + 1);
-		if (getBoard().positionExists(p) && podeMover(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		p.setValues(position.getRow() -1 , position.getColumn() + 2);
-		if (getBoard().positionExists(p) && podeMover(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		p.setValues(position.getRow() + 1, position.getColumn() + 2);
-		if (getBoard().positionExists(p) && podeMover(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		p.setValues(position.getRow() + 2, position.getColumn() + 1);
-		if (getBoard().positionExists(p) && podeMover(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		p.setValues(position.getRow() + 2, position.getColumn() - 1);
-		if (getBoard().positionExists(p) && podeMover(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		p.setValues(position.getRow() + 1, position.getColumn() - 2);
-		if (getBoard().positionExists(p) && podeMover(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-
-		return mat;
+	public long possibleMovesBitboard() {
+		return Attacks.knight(getSquare()) & ~getChessBoard().occupancy(getColor());
 	}
 }
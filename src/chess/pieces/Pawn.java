@@ -1,10 +1,13 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Attacks;
+import chess.ChessBoard;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.Color;
+import chess.Move;
+import chess.PieceType;
 
 public class Pawn extends ChessPiece {
 
@@ -16,93 +19,71 @@ public class Pawn extends ChessPiece {
 	}
 
 	@Override
-	public boolean[][] possibleMoves() {
-		boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-
-		Position p = new Position(0, 0);
+	public long possibleMovesBitboard() {
+		ChessBoard board = getChessBoard();
+		int sq = getSquare();
+		long vazias = ~board.occupancy();
+		long inimigas = board.occupancy() & ~board.occupancy(getColor());
+		long destinos = Attacks.pawn(getColor(), sq) & inimigas;
 
 		if (getColor() == Color.WHITE) {
-
 			// above
-			p.setValues(position.getRow() - 1, position.getColumn());
-			if (getBoard().positionExists(p) && !getBoard().thereIsPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
-			}
-
+			long frente = ((1L << sq) >>> 8) & vazias;
+			destinos |= frente;
 			// first moviment
-			p.setValues(position.getRow() - 2, position.getColumn());
-			Position p2 = new Position(position.getRow() - 1, position.getColumn());
-			if (getBoard().positionExists(p) && !getBoard().thereIsPiece(p) && getBoard().positionExists(p2)
-					&& !getBoard().thereIsPiece(p2) && getMoveCount() == 0) {
-				mat[p.getRow()][p.getColumn()] = true;
-			}
-
-			// nw
-			p.setValues(position.getRow() - 1, position.getColumn() - 1);
-			if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
-			}
-
-			// ne
-			p.setValues(position.getRow() - 1, position.getColumn() + 1);
-			if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
+			if (ChessBoard.row(sq) == 6) {
+				destinos |= (frente >>> 8) & vazias;
 			}
-			// #specialmove en passant white
-			if (position.getRow() == 3) {
-				Position left = new Position(position.getRow(), position.getColumn() - 1);
-				if (getBoard().positionExists(left) && isThereOpponentPiece(left)
-						&& getBoard().piece(left) == chessMatch.getEnPassantVulnerable()) {
-					mat[left.getRow() - 1][left.getColumn()] = true;
-				}
-				Position right = new Position(position.getRow(), position.getColumn() + 1);
-				if (getBoard().positionExists(right) && isThereOpponentPiece(right)
-						&& getBoard().piece(right) == chessMatch.getEnPassantVulnerable()) {
-					mat[right.getRow() - 1][right.getColumn()] = true;
-				}
-			}
-
 		} else {
 			// above
-			p.setValues(position.getRow() + 1, position.getColumn());
-			if (getBoard().positionExists(p) && !getBoard().thereIsPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
-			}
-
+			long frente = ((1L << sq) << 8) & vazias;
+			destinos |= frente;
 			// first moviment
-			p.setValues(position.getRow() + 2, position.getColumn());
-			Position p2 = new Position(position.getRow() + 1, position.getColumn());
-			if (getBoard().positionExists(p) && !getBoard().thereIsPiece(p) && getBoard().positionExists(p2)
-					&& !getBoard().thereIsPiece(p2) && getMoveCount() == 0) {
-				mat[p.getRow()][p.getColumn()] = true;
+			if (ChessBoard.row(sq) == 1) {
+				destinos |= (frente << 8) & vazias;
 			}
+		}
 
-			// nw
-			p.setValues(position.getRow() + 1, position.getColumn() + 1);
-			if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
+		// #specialmove en passant
+		ChessPiece vulneravel = chessMatch.getEnPassantVulnerable();
+		int linha = (getColor() == Color.WHITE) ? 3 : 4;
+		if (vulneravel != null && vulneravel.getColor() != getColor() && ChessBoard.row(sq) == linha) {
+			int alvo = vulneravel.getSquare();
+			if (alvo >= 0 && ChessBoard.row(alvo) == linha
+					&& Math.abs(ChessBoard.column(alvo) - ChessBoard.column(sq)) == 1) {
+				destinos |= 1L << ((getColor() == Color.WHITE) ? alvo - 8 : alvo + 8);
 			}
+		}
+		return destinos;
+	}
 
-			// ne
-			p.setValues(position.getRow() + 1, position.getColumn() - 1);
-			if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
-			}
-			// #specialmove en passant black
-			if (position.getRow() == 4) {
-				Position left = new Position(position.getRow(), position.getColumn() - 1);
-				if (getBoard().positionExists(left) && isThereOpponentPiece(left)
-						&& getBoard().piece(left) == chessMatch.getEnPassantVulnerable()) {
-					mat[left.getRow() + 1][left.getColumn()] = true;
-				}
-				Position right = new Position(position.getRow(), position.getColumn() + 1);
-				if (getBoard().positionExists(right) && isThereOpponentPiece(right)
-						&& getBoard().piece(right) == chessMatch.getEnPassantVulnerable()) {
-					mat[right.getRow() + 1][right.getColumn()] = true;
-				}
+	/**
+	 * Gera os movimentos do peao, expandindo cada chegada na ultima fileira nas
+	 * quatro pecas de promocao
+	 */
+	@Override
+	public int generateMoves(int[] moves, int count) {
+		int from = getSquare();
+		long destinos = possibleMovesBitboard();
+		while (destinos != 0) {
+			int to = Long.numberOfTrailingZeros(destinos);
+			destinos &= destinos - 1;
+			if (to < 8 || to >= 56) {
+				// #specialmove promotion
+				moves[count++] = Move.encode(from, to, PieceType.QUEEN);
+				moves[count++] = Move.encode(from, to, PieceType.ROOK);
+				moves[count++] = Move.encode(from, to, PieceType.BISHOP);
+				moves[count++] = Move.encode(from, to, PieceType.KNIGHT);
+			} else {
+				moves[count++] = Move.encode(from, to);
 			}
 		}
-		return mat;
+		return count;
+	}
+
+	@Override
+	public PieceType getType() {
+		return PieceType.PAWN;
 	}
 
 	@Override
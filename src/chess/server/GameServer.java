@@ -0,0 +1,233 @@
+package chess.server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import chess.Move;
+import chess.MoveStatus;
+import chess.book.OpeningBook;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.TranspositionTable;
+
+/**
+ * Servidor TCP que hospeda muitas partidas independentes. Cada conexao e
+ * atendida por uma thread propria (virtual, quando a JVM oferece) e pode
+ * comandar qualquer partida. Protocolo de linhas em texto, uma resposta por
+ * comando:
+ *
+ * <pre>
+ * create                 -&gt; ok &lt;id&gt;
+ * move &lt;id&gt; &lt;e2e4&gt;      -&gt; ok &lt;situacao&gt; | error &lt;MoveStatus&gt;
+ * state &lt;id&gt;             -&gt; ok &lt;situacao&gt; &lt;fen&gt;
+ * resign &lt;id&gt;            -&gt; ok resigned | error GAME_OVER
+ * go &lt;id&gt; [ms]           -&gt; ok &lt;e2e4&gt; book|search &lt;situacao&gt; | error &lt;MoveStatus&gt;
+ * close &lt;id&gt;             -&gt; ok
+ * quit                   -&gt; encerra a conexao
+ * </pre>
+ *
+ * O comando go joga pelo lado da vez: responde pelo livro de aberturas quando
+ * a posicao esta nele e, senao, busca por no maximo ms milissegundos com um dos
+ * buscadores do servidor (1000 se omitido, limitado a 10000; zero ou negativo e
+ * MALFORMED). A situacao e active, check, resigned ou o fim da
+ * partida: checkmate, stalemate, threefold_repetition ou fifty_move_rule.
+ * Comandos para uma partida inexistente respondem "error NO_MATCH"; comandos
+ * desconhecidos, "error UNKNOWN_COMMAND".
+ *
+ * @author fsouviei
+ *
+ */
+public class GameServer implements AutoCloseable {
+
+	private static final int TAMANHO_TABELA_MB = 16;
+	private static final long TEMPO_PADRAO = 1000;
+	private static final long TEMPO_MAXIMO = 10_000;
+
+	private final ServerSocket serverSocket;
+	private final ExecutorService conexoes = VirtualThreads.newThreadPerTaskExecutor("game-server");
+	private final ConcurrentHashMap<Long, ServerMatch> partidas = new ConcurrentHashMap<>();
+	private final AtomicLong proximoId = new AtomicLong(1);
+	private final AtomicLong comandos = new AtomicLong();
+	private final OpeningBook book;
+	private final BlockingQueue<Search> buscadores;
+	private volatile boolean encerrado;
+
+	/**
+	 * Abre o servidor no endereco local, sem livro e com um buscador
+	 *
+	 * @param port - porta TCP; 0 escolhe uma porta livre
+	 * @throws IOException
+	 */
+	public GameServer(int port) throws IOException {
+		this(port, null, 1);
+	}
+
+	/**
+	 * @param port      - porta TCP; 0 escolhe uma porta livre
+	 * @param book      - livro de aberturas consultado pelo comando go; pode ser
+	 *                  null
+	 * @param searchers - buscadores que atendem o comando go ao mesmo tempo
+	 * @throws IOException
+	 */
+	public GameServer(int port, OpeningBook book, int searchers) throws IOException {
+		serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+		this.book = book;
+		buscadores = new ArrayBlockingQueue<>(searchers);
+		for (int i = 0; i < searchers; i++) {
+			buscadores.add(new Search(new TranspositionTable(TAMANHO_TABELA_MB)));
+		}
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	public int getMatchCount() {
+		return partidas.size();
+	}
+
+	public long getCommandCount() {
+		return comandos.get();
+	}
+
+	/**
+	 * Aceita conexoes ate {@link #close()}; bloqueia a thread que chama
+	 */
+	public void serve() {
+		while (!encerrado) {
+			try {
+				Socket socket = serverSocket.accept();
+				conexoes.execute(() -> atender(socket));
+			} catch (IOException e) {
+				if (!encerrado) {
+					System.err.println("Falha ao aceitar conexao: " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Aceita conexoes em uma thread propria
+	 */
+	public void start() {
+		Thread t = new Thread(this::serve, "game-server-accept");
+		t.setDaemon(true);
+		t.start();
+	}
+
+	@Override
+	public void close() throws IOException {
+		encerrado = true;
+		serverSocket.close();
+		conexoes.shutdownNow();
+	}
+
+	/**
+	 * Interpreta um comando do protocolo
+	 *
+	 * @param line
+	 * @return a resposta, sem o terminador de linha
+	 */
+	String handle(String line) {
+		comandos.incrementAndGet();
+		String[] campos = line.trim().split(" +");
+		switch (campos[0]) {
+		case "create":
+			long id = proximoId.getAndIncrement();
+			partidas.put(id, new ServerMatch(id));
+			return "ok " + id;
+		case "move":
+			if (campos.length < 3) {
+				return "error " + MoveStatus.MALFORMED;
+			}
+			ServerMatch partida = partida(campos[1]);
+			if (partida == null) {
+				return "error NO_MATCH";
+			}
+			int move = Move.parse(campos[2]);
+			return move == Move.NONE ? "error " + MoveStatus.MALFORMED : partida.move(move);
+		case "state":
+			partida = campos.length > 1 ? partida(campos[1]) : null;
+			return partida == null ? "error NO_MATCH" : partida.state();
+		case "resign":
+			partida = campos.length > 1 ? partida(campos[1]) : null;
+			return partida == null ? "error NO_MATCH" : partida.resign();
+		case "go":
+			partida = campos.length > 1 ? partida(campos[1]) : null;
+			if (partida == null) {
+				return "error NO_MATCH";
+			}
+			long tempo = TEMPO_PADRAO;
+			if (campos.length > 2) {
+				try {
+					tempo = Long.parseLong(campos[2]);
+				} catch (NumberFormatException e) {
+					return "error " + MoveStatus.MALFORMED;
+				}
+				// sem tempo positivo a busca nao teria limite e prenderia a partida e
+				// um buscador
+				if (tempo <= 0) {
+					return "error " + MoveStatus.MALFORMED;
+				}
+				tempo = Math.min(tempo, TEMPO_MAXIMO);
+			}
+			return partida.engineMove(book, buscadores, new SearchLimits().setMoveTime(tempo));
+		case "close":
+			partida = campos.length > 1 ? partida(campos[1]) : null;
+			if (partida == null) {
+				return "error NO_MATCH";
+			}
+			partidas.remove(partida.getId());
+			return "ok";
+		default:
+			return "error UNKNOWN_COMMAND";
+		}
+	}
+
+	private ServerMatch partida(String id) {
+		try {
+			return partidas.get(Long.parseLong(id));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private void atender(Socket socket) {
+		try (Socket s = socket;
+				BufferedReader in = new BufferedReader(
+						new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+				Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.US_ASCII))) {
+			s.setTcpNoDelay(true);
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.equals("quit")) {
+					break;
+				}
+				if (line.isBlank()) {
+					continue;
+				}
+				out.write(handle(line));
+				out.write('\n');
+				out.flush();
+			}
+		} catch (SocketException e) {
+			// cliente desconectou
+		} catch (IOException e) {
+			System.err.println("Falha na conexao: " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package chess.server;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.Move;
+import chess.MoveStatus;
+import chess.PositionSnapshot;
+import chess.book.OpeningBook;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+
+/**
+ * Uma partida hospedada pelo {@link GameServer}. Os comandos que alteram uma
+ * partida sao serializados por uma trava propria; partidas diferentes nao
+ * disputam nenhuma trava, e state le o {@link PositionSnapshot} sem trava. E
+ * usado {@link ReentrantLock} em vez de synchronized para que uma thread
+ * virtual bloqueada libere sua thread de plataforma.
+ *
+ * @author fsouviei
+ *
+ */
+final class ServerMatch {
+
+	private final long id;
+	private final ChessMatch match = new ChessMatch();
+	private final ReentrantLock trava = new ReentrantLock();
+	private volatile Color desistente;
+
+	ServerMatch(long id) {
+		this.id = id;
+	}
+
+	long getId() {
+		return id;
+	}
+
+	/**
+	 * Executa um movimento do jogador da vez
+	 *
+	 * @param move - movimento codificado por {@link chess.Move}
+	 * @return resposta do protocolo
+	 */
+	String move(int move) {
+		trava.lock();
+		try {
+			if (desistente != null) {
+				return "error " + MoveStatus.GAME_OVER;
+			}
+			MoveStatus status = match.playMove(move);
+			if (status != MoveStatus.OK) {
+				return "error " + status;
+			}
+			return "ok " + situacao(match.getSnapshot());
+		} finally {
+			trava.unlock();
+		}
+	}
+
+	/**
+	 * Joga pelo lado da vez: consulta o livro de aberturas e, fora dele, busca com
+	 * um dos buscadores do servidor
+	 *
+	 * @param book       - livro de aberturas; pode ser null
+	 * @param buscadores - buscadores livres; a thread espera se todos estiverem
+	 *                   ocupados
+	 * @param limits
+	 * @return resposta do protocolo
+	 */
+	String engineMove(OpeningBook book, BlockingQueue<Search> buscadores, SearchLimits limits) {
+		trava.lock();
+		try {
+			if (desistente != null || match.getStatus().isOver()) {
+				return "error " + MoveStatus.GAME_OVER;
+			}
+			int move = book == null ? Move.NONE : book.move(match, true);
+			String origem = "book";
+			if (move == Move.NONE) {
+				origem = "search";
+				Search search = buscadores.take();
+				try {
+					move = search.search(match, limits).getMove();
+				} finally {
+					buscadores.add(search);
+				}
+			}
+			if (move == Move.NONE) {
+				return "error " + MoveStatus.GAME_OVER;
+			}
+			MoveStatus status = match.playMove(move);
+			if (status != MoveStatus.OK) {
+				return "error " + status;
+			}
+			return "ok " + Move.toString(move) + " " + origem + " " + situacao(match.getSnapshot());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return "error INTERRUPTED";
+		} finally {
+			trava.unlock();
+		}
+	}
+
+	/**
+	 * Le a ultima posicao publicada pela partida, sem a trava: espectadores nao
+	 * esperam uma busca em andamento
+	 */
+	String state() {
+		PositionSnapshot snapshot = match.getSnapshot();
+		return "ok " + situacao(snapshot) + " " + snapshot.toFen();
+	}
+
+	/**
+	 * O jogador da vez abandona a partida
+	 */
+	String resign() {
+		trava.lock();
+		try {
+			if (desistente != null || match.getStatus().isOver()) {
+				return "error " + MoveStatus.GAME_OVER;
+			}
+			desistente = match.getJogadorAtual();
+			return "ok " + situacao(match.getSnapshot());
+		} finally {
+			trava.unlock();
+		}
+	}
+
+	/**
+	 * Situacao da partida: active, check, resigned ou, quando a partida terminou,
+	 * o {@link chess.GameStatus} em minusculas (checkmate, stalemate,
+	 * threefold_repetition ou fifty_move_rule)
+	 */
+	private String situacao(PositionSnapshot snapshot) {
+		if (desistente != null) {
+			return "resigned";
+		}
+		if (snapshot.getStatus().isOver()) {
+			return snapshot.getStatus().name().toLowerCase();
+		}
+		return snapshot.getCheck() ? "check" : "active";
+	}
+}
@@ -0,0 +1,59 @@
+package chess.server;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cria executores de uma thread por tarefa. O projeto compila para Java 17,
+ * entao as threads virtuais (Java 21) sao obtidas por reflexao quando a JVM as
+ * oferece; nas versoes anteriores sao usadas threads de plataforma.
+ *
+ * @author fsouviei
+ *
+ */
+public final class VirtualThreads {
+
+	private static final Method NOVO_EXECUTOR = procurar();
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * Verifica se a JVM atual oferece threads virtuais
+	 *
+	 * @return
+	 */
+	public static boolean isAvailable() {
+		return NOVO_EXECUTOR != null;
+	}
+
+	/**
+	 * Executor que inicia uma thread nova, virtual se possivel, para cada tarefa
+	 *
+	 * @param name - nome das threads de plataforma, quando nao ha threads virtuais
+	 * @return
+	 */
+	public static ExecutorService newThreadPerTaskExecutor(String name) {
+		if (NOVO_EXECUTOR != null) {
+			try {
+				return (ExecutorService) NOVO_EXECUTOR.invoke(null);
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException("Falha ao criar o executor de threads virtuais", e);
+			}
+		}
+		return Executors.newCachedThreadPool(r -> {
+			Thread t = new Thread(r, name);
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	private static Method procurar() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+}
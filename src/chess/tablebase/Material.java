@@ -0,0 +1,331 @@
+package chess.tablebase;
+
+import chess.ChessBoard;
+import chess.PieceType;
+
+/**
+ * Conjunto de pecas de uma tabela de finais, como "KQvK" ou "KRPvKR". O lado
+ * escrito primeiro e o lado forte; na tabela ele joga com as brancas. Uma
+ * posicao em que o lado forte tem as pretas e consultada espelhada.
+ *
+ * A material tambem define o indice de cada posicao na tabela. As pecas ficam
+ * na ordem rei forte, pecas fortes, rei fraco, pecas fracas (dama, torre, bispo,
+ * cavalo, peao) e o indice e
+ *
+ * <pre>
+ * ((rei * 64 + casa1) * 64 + casa2 ...) * 2 + vez
+ * </pre>
+ *
+ * onde vez e 0 quando o lado forte joga. As simetrias do tabuleiro levam o rei
+ * forte a uma regiao reduzida: o triangulo a1-d1-d4 (10 casas) sem peoes, ou as
+ * colunas a-d (32 casas) com peoes, que so admitem o espelho entre as alas.
+ *
+ * @author fsouviei
+ *
+ */
+public final class Material {
+
+	public static final int MAX_PIECES = 5;
+
+	/**
+	 * Ordem das pecas de cada lado depois do rei
+	 */
+	static final PieceType[] ORDEM = { PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT,
+			PieceType.PAWN };
+
+	/**
+	 * Bits da chave por lado: 3 bits de contagem por tipo, do peao a dama
+	 */
+	static final int BITS_LADO = 15;
+
+	private static final String LETRAS = "PNBRQK";
+	private static final int[] VALORES = { 1, 3, 3, 5, 9 };
+
+	/**
+	 * Simetrias aplicadas a todas as casas, nesta ordem
+	 */
+	private static final int ESPELHO_COLUNA = 1;
+	private static final int ESPELHO_LINHA = 2;
+	private static final int DIAGONAL = 4;
+
+	private static final int[] TRIANGULO = new int[64];
+	private static final int[] REI_TRIANGULO = new int[10];
+	private static final int[] METADE = new int[64];
+	private static final int[] REI_METADE = new int[32];
+
+	static {
+		int t = 0;
+		int m = 0;
+		for (int sq = 0; sq < 64; sq++) {
+			int row = ChessBoard.row(sq);
+			int column = ChessBoard.column(sq);
+			TRIANGULO[sq] = -1;
+			METADE[sq] = -1;
+			if (column <= 3) {
+				METADE[sq] = m;
+				REI_METADE[m++] = sq;
+				if (row >= 4 && row + column >= 7) {
+					TRIANGULO[sq] = t;
+					REI_TRIANGULO[t++] = sq;
+				}
+			}
+		}
+	}
+
+	private final int key;
+	private final PieceType[] tipos;
+	private final boolean[] fortes;
+	private final int reiFraco;
+	private final boolean peoes;
+	private final int size;
+
+	private Material(int key) {
+		this.key = key;
+		int n = 2;
+		for (int t = 0; t < 5; t++) {
+			n += count(key, true, t) + count(key, false, t);
+		}
+		if (n > MAX_PIECES) {
+			throw new IllegalArgumentException("Tabelas de finais vao ate " + MAX_PIECES + " pecas");
+		}
+		tipos = new PieceType[n];
+		fortes = new boolean[n];
+		int i = preencher(0, true);
+		reiFraco = i;
+		preencher(i, false);
+		peoes = count(key, true, PieceType.PAWN.ordinal()) + count(key, false, PieceType.PAWN.ordinal()) > 0;
+		long posicoes = (peoes ? REI_METADE.length : REI_TRIANGULO.length) * 2L;
+		for (i = 1; i < n; i++) {
+			posicoes *= 64;
+		}
+		size = (int) posicoes;
+	}
+
+	private int preencher(int i, boolean forte) {
+		tipos[i] = PieceType.KING;
+		fortes[i++] = forte;
+		for (PieceType tipo : ORDEM) {
+			for (int c = count(key, forte, tipo.ordinal()); c > 0; c--) {
+				tipos[i] = tipo;
+				fortes[i++] = forte;
+			}
+		}
+		return i;
+	}
+
+	/**
+	 * Le um nome como "KQvK" ou "krpvkr". Sem o "v", os lados sao separados no
+	 * segundo rei: "KQK", "KRPKR".
+	 *
+	 * @param name
+	 * @return
+	 * @throws IllegalArgumentException se o nome for invalido ou tiver mais de
+	 *                                  {@link #MAX_PIECES} pecas
+	 */
+	public static Material parse(String name) {
+		String nome = name.toUpperCase();
+		int v = nome.indexOf('V');
+		int corte = v >= 0 ? v : nome.indexOf('K', 1);
+		if (corte < 0 || (v >= 0 && nome.indexOf('V', v + 1) >= 0)) {
+			throw new IllegalArgumentException("Material invalido: " + name);
+		}
+		String fraco = nome.substring(v >= 0 ? corte + 1 : corte);
+		return new Material(lado(nome.substring(0, corte), name) << BITS_LADO | lado(fraco, name));
+	}
+
+	private static int lado(String pecas, String name) {
+		if (pecas.isEmpty() || pecas.charAt(0) != 'K') {
+			throw new IllegalArgumentException("Material invalido: " + name);
+		}
+		int chave = 0;
+		for (int i = 1; i < pecas.length(); i++) {
+			int t = LETRAS.indexOf(pecas.charAt(i));
+			if (t < 0 || t == PieceType.KING.ordinal() || ((chave >>> (3 * t)) & 7) == 7) {
+				throw new IllegalArgumentException("Material invalido: " + name);
+			}
+			chave += 1 << (3 * t);
+		}
+		return chave;
+	}
+
+	static Material of(int key) {
+		return new Material(key);
+	}
+
+	/**
+	 * Chave com a contagem de cada tipo de peca dos dois lados: o lado forte nos
+	 * bits altos
+	 *
+	 * @return
+	 */
+	public int key() {
+		return key;
+	}
+
+	static int count(int key, boolean forte, int tipo) {
+		return (key >>> ((forte ? BITS_LADO : 0) + 3 * tipo)) & 7;
+	}
+
+	static int mirror(int key) {
+		return (key & ((1 << BITS_LADO) - 1)) << BITS_LADO | key >>> BITS_LADO;
+	}
+
+	/**
+	 * A mesma material com os lados trocados
+	 *
+	 * @return
+	 */
+	public Material mirror() {
+		return new Material(mirror(key));
+	}
+
+	/**
+	 * Uma material e canonica quando o lado forte tem ao menos o material do lado
+	 * fraco. So as materiais canonicas sao geradas; a outra metade e consultada
+	 * espelhada.
+	 *
+	 * @return
+	 */
+	public boolean isCanonical() {
+		int forte = valor(true);
+		int fraco = valor(false);
+		return forte > fraco || (forte == fraco && key >>> BITS_LADO >= (key & ((1 << BITS_LADO) - 1)));
+	}
+
+	public Material canonical() {
+		return isCanonical() ? this : mirror();
+	}
+
+	private int valor(boolean forte) {
+		int v = 0;
+		for (int t = 0; t < 5; t++) {
+			v += count(key, forte, t) * VALORES[t];
+		}
+		return v;
+	}
+
+	public boolean hasPawns() {
+		return peoes;
+	}
+
+	public int pieceCount() {
+		return tipos.length;
+	}
+
+	/**
+	 * Quantidade de posicoes da tabela, incluindo as impossiveis
+	 *
+	 * @return
+	 */
+	public int size() {
+		return size;
+	}
+
+	PieceType type(int i) {
+		return tipos[i];
+	}
+
+	boolean isStrong(int i) {
+		return fortes[i];
+	}
+
+	/**
+	 * Indice do rei fraco na ordem das pecas
+	 */
+	int weakKing() {
+		return reiFraco;
+	}
+
+	/**
+	 * Indice de uma posicao
+	 *
+	 * @param casas - casa de cada peca, na ordem da material
+	 * @param vez   - 0 quando o lado forte joga
+	 * @return
+	 */
+	int index(int[] casas, int vez) {
+		int t = transformacao(casas[0], peoes);
+		int idx = rei(transformar(casas[0], t), peoes);
+		for (int i = 1; i < tipos.length; i++) {
+			idx = idx * 64 + transformar(casas[i], t);
+		}
+		return idx * 2 + vez;
+	}
+
+	/**
+	 * Inverso de {@link #index(int[], int)}; o rei forte sai na regiao reduzida
+	 *
+	 * @return vez
+	 */
+	int decode(int index, int[] casas) {
+		int resto = index >>> 1;
+		for (int i = tipos.length - 1; i > 0; i--) {
+			casas[i] = resto & 63;
+			resto >>>= 6;
+		}
+		casas[0] = peoes ? REI_METADE[resto] : REI_TRIANGULO[resto];
+		return index & 1;
+	}
+
+	/**
+	 * Simetria que leva o rei forte a regiao reduzida
+	 */
+	static int transformacao(int rei, boolean peoes) {
+		int t = 0;
+		if (ChessBoard.column(rei) > 3) {
+			t |= ESPELHO_COLUNA;
+			rei ^= 7;
+		}
+		if (peoes) {
+			return t;
+		}
+		if (ChessBoard.row(rei) < 4) {
+			t |= ESPELHO_LINHA;
+			rei ^= 56;
+		}
+		if (ChessBoard.row(rei) + ChessBoard.column(rei) < 7) {
+			t |= DIAGONAL;
+		}
+		return t;
+	}
+
+	static int transformar(int sq, int t) {
+		if ((t & ESPELHO_COLUNA) != 0) {
+			sq ^= 7;
+		}
+		if ((t & ESPELHO_LINHA) != 0) {
+			sq ^= 56;
+		}
+		if ((t & DIAGONAL) != 0) {
+			// reflexao na diagonal a1-h8
+			sq = 63 - (ChessBoard.column(sq) * 8 + ChessBoard.row(sq));
+		}
+		return sq;
+	}
+
+	static int rei(int sq, boolean peoes) {
+		return peoes ? METADE[sq] : TRIANGULO[sq];
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof Material && ((Material) obj).key == key;
+	}
+
+	@Override
+	public int hashCode() {
+		return key;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < tipos.length; i++) {
+			if (i == reiFraco) {
+				sb.append('v');
+			}
+			sb.append(LETRAS.charAt(tipos[i].ordinal()));
+		}
+		return sb.toString();
+	}
+}
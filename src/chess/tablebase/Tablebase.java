@@ -0,0 +1,194 @@
+package chess.tablebase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Tabela de distancia ao mate de uma {@link Material}. Cada posicao guarda um
+ * codigo: 0 para empate (ou posicao impossivel) e, para as demais, a distancia
+ * ao mate em meios-lances mais 1. A distancia e impar quando o jogador da vez
+ * vence e par quando perde, entao o codigo basta para vitoria, empate e
+ * derrota.
+ *
+ * Os codigos sao empacotados com o menor numero de bits que comporta a maior
+ * distancia da tabela, ate 16. O arquivo (little endian) e
+ *
+ * <pre>
+ * cabecalho   int magic, int versao, int chave da material, int bits,
+ *             int maior distancia, int reservado
+ * dados       long[] com os codigos empacotados
+ * </pre>
+ *
+ * A tabela e imutavel e pode ser consultada por varias threads.
+ *
+ * @author fsouviei
+ *
+ */
+public final class Tablebase {
+
+	static final int MAGIC = 0x31425443; // "CTB1"
+	static final int VERSION = 1;
+	static final int HEADER = 24;
+
+	private final Material material;
+	private final int bits;
+	private final long mascara;
+	private final long[] dados;
+	private final int maxPlies;
+
+	/**
+	 * @param material
+	 * @param codigos  - codigo de cada posicao, sem sinal
+	 */
+	Tablebase(Material material, short[] codigos) {
+		this.material = material;
+		int maior = 0;
+		for (short c : codigos) {
+			maior = Math.max(maior, c & 0xFFFF);
+		}
+		maxPlies = Math.max(0, maior - 1);
+		bits = 32 - Integer.numberOfLeadingZeros(maior);
+		mascara = (1L << bits) - 1;
+		dados = new long[(int) (((long) codigos.length * bits + 63) >>> 6)];
+		for (int i = 0; i < codigos.length; i++) {
+			long v = codigos[i] & 0xFFFF;
+			if (v != 0) {
+				long bit = (long) i * bits;
+				int w = (int) (bit >>> 6);
+				int desloc = (int) (bit & 63);
+				dados[w] |= v << desloc;
+				if (desloc + bits > 64) {
+					dados[w + 1] |= v >>> (64 - desloc);
+				}
+			}
+		}
+	}
+
+	private Tablebase(Material material, int bits, int maxPlies, long[] dados) {
+		this.material = material;
+		this.bits = bits;
+		this.mascara = (1L << bits) - 1;
+		this.maxPlies = maxPlies;
+		this.dados = dados;
+	}
+
+	public Material getMaterial() {
+		return material;
+	}
+
+	/**
+	 * Maior distancia ao mate da tabela, em meios-lances
+	 *
+	 * @return
+	 */
+	public int getMaxPlies() {
+		return maxPlies;
+	}
+
+	/**
+	 * Bits por posicao
+	 *
+	 * @return
+	 */
+	public int getBits() {
+		return bits;
+	}
+
+	/**
+	 * Tamanho dos dados empacotados, em bytes
+	 *
+	 * @return
+	 */
+	public long byteSize() {
+		return dados.length * 8L;
+	}
+
+	/**
+	 * Codigo da posicao: 0 para empate, senao distancia ao mate + 1
+	 *
+	 * @param index - ver {@link Material}
+	 * @return
+	 */
+	int code(int index) {
+		if (bits == 0) {
+			return 0;
+		}
+		long bit = (long) index * bits;
+		int w = (int) (bit >>> 6);
+		int desloc = (int) (bit & 63);
+		long v = dados[w] >>> desloc;
+		if (desloc + bits > 64) {
+			v |= dados[w + 1] << (64 - desloc);
+		}
+		return (int) (v & mascara);
+	}
+
+	public void write(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(material.key()).putInt(bits).putInt(maxPlies).putInt(0);
+			for (long palavra : dados) {
+				if (buffer.remaining() < 8) {
+					descarregar(channel, buffer);
+				}
+				buffer.putLong(palavra);
+			}
+			descarregar(channel, buffer);
+		}
+	}
+
+	private static void descarregar(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Le uma tabela gravada por {@link #write(Path)}
+	 *
+	 * @param file
+	 * @return
+	 * @throws IOException se o arquivo nao for uma tabela valida
+	 */
+	public static Tablebase read(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long tamanho = channel.size();
+			if (tamanho < HEADER || tamanho > Integer.MAX_VALUE) {
+				throw new IOException("Tabela de finais invalida: " + file);
+			}
+			MappedByteBuffer mapa = channel.map(FileChannel.MapMode.READ_ONLY, 0, tamanho);
+			mapa.order(ByteOrder.LITTLE_ENDIAN);
+			if (mapa.getInt(0) != MAGIC || mapa.getInt(4) != VERSION) {
+				throw new IOException("Tabela de finais invalida: " + file);
+			}
+			Material material;
+			try {
+				material = Material.of(mapa.getInt(8));
+			} catch (IllegalArgumentException e) {
+				throw new IOException("Tabela de finais invalida: " + file);
+			}
+			int bits = mapa.getInt(12);
+			long palavras = ((long) material.size() * bits + 63) >>> 6;
+			if (bits < 0 || bits > 16 || HEADER + palavras * 8 != tamanho) {
+				throw new IOException("Tabela de finais invalida: " + file);
+			}
+			long[] dados = new long[(int) palavras];
+			mapa.position(HEADER);
+			mapa.asLongBuffer().get(dados);
+			return new Tablebase(material, bits, mapa.getInt(16), dados);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return material.toString();
+	}
+}
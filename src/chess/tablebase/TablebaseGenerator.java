@@ -0,0 +1,689 @@
+package chess.tablebase;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import chess.Attacks;
+import chess.ChessBoard;
+import chess.Color;
+import chess.PieceType;
+
+/**
+ * Gera tabelas de finais por analise retrograda. A inicializacao marca os mates
+ * (distancia 0) e conta, para cada posicao, os movimentos que ficam na
+ * material. Na passagem n, cada posicao resolvida na passagem anterior tem seus
+ * movimentos desfeitos: se ela perde, os antecessores vencem em n; se vence,
+ * cada antecessor desconta um sucessor e perde em n quando nao resta nenhum. O
+ * que nao se resolve quando as passagens param de mudar a tabela e empate.
+ *
+ * Capturas e promocoes levam a outras materiais, geradas antes e consultadas
+ * ja prontas na inicializacao; o resultado que elas garantem fica guardado e
+ * entra na passagem da sua distancia.
+ *
+ * Cada passagem divide as posicoes em blocos processados em paralelo. Uma
+ * passagem so grava o codigo n + 1, entao gravacoes concorrentes na mesma
+ * posicao sao iguais; so o desconto de sucessores e atomico.
+ *
+ * A geracao usa uma representacao propria e leve da posicao (casa de cada peca
+ * e os bitboards de {@link Attacks}), sem {@link chess.ChessMatch}. En passant
+ * e roque nao sao considerados.
+ *
+ * @author fsouviei
+ *
+ */
+public class TablebaseGenerator implements AutoCloseable {
+
+	private static final int BLOCO = 1 << 15;
+
+	/**
+	 * Estado das posicoes durante a geracao; os demais valores sao distancia + 1
+	 */
+	private static final short PENDENTE = 0;
+	private static final short EMPATE = (short) 0xFFFE;
+	private static final short ILEGAL = (short) 0xFFFF;
+	private static final int MAX_CODIGO = 0xFFFD;
+
+	/**
+	 * Candidato de uma posicao com alguma captura ou promocao para empate: ela
+	 * nao perde
+	 */
+	private static final int NAO_PERDE = 0xFFFF;
+
+	/**
+	 * Contadores de sucessores, um byte por posicao, quatro por int
+	 */
+	private static final VarHandle CONTADOR = MethodHandles.arrayElementVarHandle(int[].class);
+
+	private static final PieceType[] PROMOCOES = { PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP,
+			PieceType.KNIGHT };
+
+	private final int threads;
+	private final ExecutorService executor;
+	private final Map<Integer, Tablebase> geradas = new HashMap<>();
+	private Consumer<Tablebase> listener;
+
+	public TablebaseGenerator(int threads) {
+		this.threads = threads;
+		this.executor = Executors.newFixedThreadPool(threads, r -> {
+			Thread t = new Thread(r, "tablebase-generator");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Torna uma tabela ja pronta disponivel como destino de capturas e promocoes,
+	 * evitando gera-la de novo
+	 *
+	 * @param table
+	 */
+	public void add(Tablebase table) {
+		geradas.put(table.getMaterial().key(), table);
+	}
+
+	/**
+	 * Recebe cada tabela gerada, inclusive as das materiais menores
+	 *
+	 * @param listener - null para nao notificar
+	 */
+	public void setListener(Consumer<Tablebase> listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Tabelas geradas ou adicionadas ate agora
+	 *
+	 * @return
+	 */
+	public Collection<Tablebase> tables() {
+		return new ArrayList<>(geradas.values());
+	}
+
+	/**
+	 * Gera a tabela da material e, antes dela, as das materiais alcancaveis por
+	 * captura ou promocao que ainda nao existirem
+	 *
+	 * @param material - e usada a forma canonica
+	 * @return
+	 * @throws InterruptedException
+	 */
+	public Tablebase generate(Material material) throws InterruptedException {
+		Material m = material.canonical();
+		Tablebase pronta = geradas.get(m.key());
+		if (pronta != null) {
+			return pronta;
+		}
+		Geracao g = new Geracao(m);
+		g.resolver();
+		Tablebase tabela = g.tabela();
+		geradas.put(m.key(), tabela);
+		if (listener != null) {
+			listener.accept(tabela);
+		}
+		return tabela;
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Geracao de uma material
+	 */
+	private final class Geracao {
+
+		private final Material material;
+		private final int pecas;
+		private final short[] valores;
+
+		/**
+		 * Sucessores na material que ainda nao vencem, por posicao
+		 */
+		private final int[] contadores;
+
+		/**
+		 * Resultado garantido pelas capturas e promocoes: o codigo de uma vitoria
+		 * (par), de uma derrota se todos os outros movimentos vencerem (impar),
+		 * {@link #NAO_PERDE} ou 0 se nao houver
+		 */
+		private final short[] candidatos;
+		private int[] subChaves = new int[0];
+		private Tablebase[] subTabelas = new Tablebase[0];
+
+		Geracao(Material material) throws InterruptedException {
+			this.material = material;
+			this.pecas = material.pieceCount();
+			this.valores = new short[material.size()];
+			this.contadores = new int[(material.size() + 3) >>> 2];
+			this.candidatos = new short[material.size()];
+			subtabelas();
+		}
+
+		/**
+		 * Gera (ou obtem) as tabelas de todas as materiais a um movimento desta
+		 */
+		private void subtabelas() throws InterruptedException {
+			for (int i = 0; i < pecas; i++) {
+				PieceType tipo = material.type(i);
+				if (tipo != PieceType.KING) {
+					subtabela(material.key() - unidade(material.isStrong(i), tipo));
+				}
+				if (tipo == PieceType.PAWN) {
+					for (PieceType promocao : PROMOCOES) {
+						int chave = material.key() - unidade(material.isStrong(i), tipo)
+								+ unidade(material.isStrong(i), promocao);
+						subtabela(chave);
+						for (int j = 0; j < pecas; j++) {
+							if (material.isStrong(j) != material.isStrong(i) && material.type(j) != PieceType.KING) {
+								subtabela(chave - unidade(material.isStrong(j), material.type(j)));
+							}
+						}
+					}
+				}
+			}
+		}
+
+		private void subtabela(int chave) throws InterruptedException {
+			Tablebase t = generate(Material.of(chave));
+			if (sub(t.getMaterial().key()) >= 0) {
+				return;
+			}
+			int n = subChaves.length;
+			subChaves = Arrays.copyOf(subChaves, n + 1);
+			subTabelas = Arrays.copyOf(subTabelas, n + 1);
+			subChaves[n] = t.getMaterial().key();
+			subTabelas[n] = t;
+		}
+
+		private int sub(int chave) {
+			for (int i = 0; i < subChaves.length; i++) {
+				if (subChaves[i] == chave) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		void resolver() throws InterruptedException {
+			int limite = executar(0);
+			for (int n = 1;; n++) {
+				if (n + 1 > MAX_CODIGO) {
+					throw new IllegalStateException(material + ": distancia ao mate acima do suportado");
+				}
+				if (executar(n) == 0 && n >= limite) {
+					break;
+				}
+			}
+		}
+
+		/**
+		 * Uma passagem sobre todas as posicoes, dividida em blocos
+		 *
+		 * @param n - 0 para a inicializacao
+		 * @return na inicializacao, o maior codigo que ainda sera alcancado pelas
+		 *         subtabelas; nas demais passagens, as posicoes resolvidas
+		 */
+		private int executar(int n) throws InterruptedException {
+			List<Callable<Integer>> tarefas = new ArrayList<>();
+			for (int inicio = 0; inicio < valores.length; inicio += BLOCO) {
+				int de = inicio;
+				int ate = Math.min(valores.length, inicio + BLOCO);
+				tarefas.add(() -> n == 0 ? new Trabalho().inicializar(de, ate)
+						: new Trabalho().passagem(de, ate, n));
+			}
+			int total = 0;
+			try {
+				for (Future<Integer> f : executor.invokeAll(tarefas)) {
+					total = n == 0 ? Math.max(total, f.get()) : total + f.get();
+				}
+			} catch (ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			}
+			return total;
+		}
+
+		Tablebase tabela() {
+			short[] codigos = valores;
+			for (int i = 0; i < codigos.length; i++) {
+				if (codigos[i] == EMPATE || codigos[i] == ILEGAL) {
+					codigos[i] = 0;
+				}
+			}
+			return new Tablebase(material, codigos);
+		}
+
+		private int contador(int idx) {
+			return ((int) CONTADOR.getVolatile(contadores, idx >>> 2) >>> ((idx & 3) << 3)) & 0xFF;
+		}
+
+		/**
+		 * Desconta um sucessor ainda nao perdido de uma posicao
+		 *
+		 * @return sucessores que restam
+		 */
+		private int descontar(int idx) {
+			int i = idx >>> 2;
+			int desloc = (idx & 3) << 3;
+			while (true) {
+				int atual = (int) CONTADOR.getVolatile(contadores, i);
+				int c = (atual >>> desloc) & 0xFF;
+				if (c == 0) {
+					throw new IllegalStateException(material + ": sucessores inconsistentes na posicao " + idx);
+				}
+				if (CONTADOR.compareAndSet(contadores, i, atual, atual - (1 << desloc))) {
+					return c - 1;
+				}
+			}
+		}
+
+		/**
+		 * Estado de uma thread: a posicao decodificada e os buffers
+		 */
+		private final class Trabalho {
+
+			private final int[] casas = new int[pecas];
+			private final int[] ordem = new int[pecas];
+			private final int[] codigos = new int[256];
+			private final int[][] imagens = new int[8][pecas];
+
+			/**
+			 * Passagem 0: marca as posicoes impossiveis, os mates e os afogamentos,
+			 * conta os sucessores dentro da material e guarda o que as capturas e
+			 * promocoes ja garantem
+			 *
+			 * @return maior codigo gravado ou candidato
+			 */
+			int inicializar(int de, int ate) {
+				int maior = 0;
+				for (int idx = de; idx < ate; idx++) {
+					int vez = material.decode(idx, casas);
+					if (ilegal(vez)) {
+						valores[idx] = ILEGAL;
+						continue;
+					}
+					int count = sucessores(vez);
+					if (count == 0) {
+						valores[idx] = emCheque(vez) ? 1 : EMPATE;
+						continue;
+					}
+					int proprios = 0;
+					int vitoria = Integer.MAX_VALUE;
+					int derrota = 0;
+					boolean empate = false;
+					for (int i = 0; i < count; i++) {
+						int c = codigos[i];
+						if (c < 0) {
+							proprios++;
+						} else if (c == 0) {
+							empate = true;
+						} else if ((c & 1) != 0) {
+							// o oponente perde em c - 1
+							vitoria = Math.min(vitoria, c + 1);
+						} else {
+							derrota = Math.max(derrota, c + 1);
+						}
+					}
+					int candidato = vitoria != Integer.MAX_VALUE ? vitoria
+							: empate ? NAO_PERDE : derrota;
+					if (proprios == 0) {
+						// todos os movimentos saem da material: o resultado ja e final
+						valores[idx] = candidato == NAO_PERDE ? EMPATE : (short) candidato;
+					} else {
+						contadores[idx >>> 2] |= proprios << ((idx & 3) << 3);
+						candidatos[idx] = (short) candidato;
+					}
+					if (candidato != NAO_PERDE) {
+						maior = Math.max(maior, candidato);
+					}
+				}
+				return maior;
+			}
+
+			/**
+			 * Passagem n: as posicoes resolvidas na passagem anterior (codigo n) sao
+			 * levadas aos seus antecessores, e as que dependiam de uma captura ou
+			 * promocao a n meios-lances do mate sao resolvidas. Toda posicao
+			 * resolvida aqui recebe o codigo n + 1.
+			 */
+			int passagem(int de, int ate, int n) {
+				int resolvidas = 0;
+				for (int idx = de; idx < ate; idx++) {
+					int v = valores[idx] & 0xFFFF;
+					if (v == n) {
+						resolvidas += propagar(idx, n);
+					} else if (v == PENDENTE && (candidatos[idx] & 0xFFFF) == n + 1
+							&& ((n & 1) != 0 || contador(idx) == 0)) {
+						valores[idx] = (short) (n + 1);
+						resolvidas++;
+					}
+				}
+				return resolvidas;
+			}
+
+			/**
+			 * Desfaz, em todas as imagens simetricas da posicao que tem o mesmo
+			 * indice, cada movimento sem captura nem promocao do lado que acabou de
+			 * jogar. So conta o antecessor que e a forma decodificada do seu
+			 * indice; as outras imagens dele chegam pelas outras imagens desta
+			 * posicao.
+			 */
+			private int propagar(int idx, int n) {
+				int vez = material.decode(idx, casas);
+				int simetrias = material.hasPawns() ? 2 : 8;
+				int distintas = 0;
+				for (int t = 0; t < simetrias; t++) {
+					int[] imagem = imagens[distintas];
+					for (int i = 0; i < pecas; i++) {
+						imagem[i] = Material.transformar(casas[i], t);
+					}
+					if (material.index(imagem, vez) != idx || repetida(imagem, distintas)) {
+						continue;
+					}
+					distintas++;
+				}
+				int resolvidas = 0;
+				for (int k = 0; k < distintas; k++) {
+					System.arraycopy(imagens[k], 0, casas, 0, pecas);
+					resolvidas += antecessores(1 - vez, n);
+				}
+				return resolvidas;
+			}
+
+			private boolean repetida(int[] imagem, int quantidade) {
+				for (int k = 0; k < quantidade; k++) {
+					if (Arrays.equals(imagens[k], imagem)) {
+						return true;
+					}
+				}
+				return false;
+			}
+
+			/**
+			 * Movimentos desfeitos do lado informado a partir das casas atuais
+			 */
+			private int antecessores(int lado, int n) {
+				long ocupacao = 0;
+				for (int i = 0; i < pecas; i++) {
+					ocupacao |= 1L << casas[i];
+				}
+				Color cor = lado == 0 ? Color.WHITE : Color.BLACK;
+				int resolvidas = 0;
+				for (int i = 0; i < pecas; i++) {
+					if (!lado(i, lado)) {
+						continue;
+					}
+					int para = casas[i];
+					if (material.type(i) == PieceType.PAWN) {
+						int passo = cor == Color.WHITE ? 8 : -8;
+						int um = para + passo;
+						if (um >= 8 && um < 56 && (ocupacao & (1L << um)) == 0) {
+							resolvidas += antecessor(i, um, lado, ocupacao, n);
+							int linhaDupla = cor == Color.WHITE ? 4 : 3;
+							if (ChessBoard.row(para) == linhaDupla && (ocupacao & (1L << (um + passo))) == 0) {
+								resolvidas += antecessor(i, um + passo, lado, ocupacao, n);
+							}
+						}
+						continue;
+					}
+					long origens = ataques(material.type(i), cor, para, ocupacao) & ~ocupacao;
+					while (origens != 0) {
+						resolvidas += antecessor(i, Long.numberOfTrailingZeros(origens), lado, ocupacao, n);
+						origens &= origens - 1;
+					}
+				}
+				return resolvidas;
+			}
+
+			/**
+			 * Volta a peca para a origem e atualiza o antecessor, se ele for uma
+			 * posicao legal na forma decodificada do seu indice
+			 */
+			private int antecessor(int i, int origem, int lado, long ocupacao, int n) {
+				int para = casas[i];
+				casas[i] = origem;
+				long antes = (ocupacao & ~(1L << para)) | (1L << origem);
+				int resolvidas = 0;
+				// no antecessor, quem nao vai jogar nao pode estar em cheque
+				if (Material.transformacao(casas[0], material.hasPawns()) == 0
+						&& !atacada(casas[rei(1 - lado)], lado, antes, -1)) {
+					resolvidas = atualizar(material.index(casas, lado), n);
+				}
+				casas[i] = para;
+				return resolvidas;
+			}
+
+			/**
+			 * Um sucessor do antecessor acabou de ser resolvido com o codigo n
+			 */
+			private int atualizar(int idx, int n) {
+				if (valores[idx] != PENDENTE) {
+					return 0;
+				}
+				if ((n & 1) != 0) {
+					// o sucessor perde: o antecessor vence
+					valores[idx] = (short) (n + 1);
+					return 1;
+				}
+				if (descontar(idx) > 0) {
+					return 0;
+				}
+				// todos os sucessores da material vencem; as capturas e promocoes
+				// decidem se ha fuga ou uma derrota mais longa
+				int candidato = candidatos[idx] & 0xFFFF;
+				if (candidato != 0 && (candidato == NAO_PERDE || (candidato & 1) == 0 || candidato > n + 1)) {
+					return 0;
+				}
+				valores[idx] = (short) (n + 1);
+				return 1;
+			}
+
+			/**
+			 * Posicoes impossiveis: pecas na mesma casa, peao na primeira ou na
+			 * ultima linha ou o lado que acabou de jogar em cheque
+			 */
+			private boolean ilegal(int vez) {
+				long ocupacao = 0;
+				for (int i = 0; i < pecas; i++) {
+					long bit = 1L << casas[i];
+					if ((ocupacao & bit) != 0) {
+						return true;
+					}
+					if (material.type(i) == PieceType.PAWN && (casas[i] < 8 || casas[i] >= 56)) {
+						return true;
+					}
+					ocupacao |= bit;
+				}
+				return atacada(casas[rei(1 - vez)], vez, ocupacao, -1);
+			}
+
+			private boolean emCheque(int vez) {
+				long ocupacao = 0;
+				for (int i = 0; i < pecas; i++) {
+					ocupacao |= 1L << casas[i];
+				}
+				return atacada(casas[rei(vez)], 1 - vez, ocupacao, -1);
+			}
+
+			private int rei(int lado) {
+				return lado == 0 ? 0 : material.weakKing();
+			}
+
+			private boolean lado(int i, int lado) {
+				return material.isStrong(i) == (lado == 0);
+			}
+
+			/**
+			 * Codigo de cada movimento legal do lado da vez: o codigo da posicao
+			 * resultante em outra material, ou -1 se o movimento fica nesta
+			 *
+			 * @return quantidade de movimentos
+			 */
+			private int sucessores(int vez) {
+				long ocupacao = 0;
+				long proprias = 0;
+				for (int i = 0; i < pecas; i++) {
+					ocupacao |= 1L << casas[i];
+					if (lado(i, vez)) {
+						proprias |= 1L << casas[i];
+					}
+				}
+				Color cor = vez == 0 ? Color.WHITE : Color.BLACK;
+				int count = 0;
+				for (int i = 0; i < pecas; i++) {
+					if (!lado(i, vez)) {
+						continue;
+					}
+					int de = casas[i];
+					if (material.type(i) == PieceType.PAWN) {
+						int passo = cor == Color.WHITE ? -8 : 8;
+						int um = de + passo;
+						if ((ocupacao & (1L << um)) == 0) {
+							count = peao(i, um, vez, ocupacao, count);
+							int linhaInicial = cor == Color.WHITE ? 6 : 1;
+							if (ChessBoard.row(de) == linhaInicial && (ocupacao & (1L << (um + passo))) == 0) {
+								count = mover(i, um + passo, null, vez, ocupacao, count);
+							}
+						}
+						long capturas = Attacks.pawn(cor, de) & ocupacao & ~proprias;
+						while (capturas != 0) {
+							count = peao(i, Long.numberOfTrailingZeros(capturas), vez, ocupacao, count);
+							capturas &= capturas - 1;
+						}
+						continue;
+					}
+					long alvos = ataques(material.type(i), cor, de, ocupacao) & ~proprias;
+					while (alvos != 0) {
+						count = mover(i, Long.numberOfTrailingZeros(alvos), null, vez, ocupacao, count);
+						alvos &= alvos - 1;
+					}
+				}
+				return count;
+			}
+
+			private int peao(int i, int para, int vez, long ocupacao, int count) {
+				if (para < 8 || para >= 56) {
+					for (PieceType promocao : PROMOCOES) {
+						count = mover(i, para, promocao, vez, ocupacao, count);
+					}
+					return count;
+				}
+				return mover(i, para, null, vez, ocupacao, count);
+			}
+
+			/**
+			 * Faz o movimento nas casas, grava o codigo do sucessor se o movimento
+			 * for legal e desfaz
+			 */
+			private int mover(int i, int para, PieceType promocao, int vez, long ocupacao, int count) {
+				int capturada = -1;
+				for (int j = 0; j < pecas; j++) {
+					if (j != i && casas[j] == para) {
+						capturada = j;
+					}
+				}
+				int de = casas[i];
+				casas[i] = para;
+				long depois = (ocupacao & ~(1L << de)) | (1L << para);
+				if (!atacada(casas[rei(vez)], 1 - vez, depois, capturada)) {
+					codigos[count++] = capturada < 0 && promocao == null ? -1
+							: codigoSubtabela(i, capturada, promocao, 1 - vez);
+				}
+				casas[i] = de;
+				return count;
+			}
+
+			/**
+			 * Codigo do sucessor em outra material, depois de uma captura ou
+			 * promocao
+			 */
+			private int codigoSubtabela(int movida, int capturada, PieceType promocao, int vez) {
+				int chave = material.key();
+				if (capturada >= 0) {
+					chave -= unidade(material.isStrong(capturada), material.type(capturada));
+				}
+				if (promocao != null) {
+					chave += unidade(material.isStrong(movida), promocao)
+							- unidade(material.isStrong(movida), PieceType.PAWN);
+				}
+				int s = sub(chave);
+				boolean espelho = s < 0;
+				if (espelho) {
+					s = sub(Material.mirror(chave));
+				}
+				Tablebase t = subTabelas[s];
+				Material m = t.getMaterial();
+				// monta as casas na ordem da outra material
+				int usadas = capturada >= 0 ? 1 << capturada : 0;
+				for (int k = 0; k < m.pieceCount(); k++) {
+					boolean forte = m.isStrong(k) != espelho;
+					for (int j = 0; j < pecas; j++) {
+						PieceType tipo = j == movida && promocao != null ? promocao : material.type(j);
+						if ((usadas & (1 << j)) == 0 && material.isStrong(j) == forte && tipo == m.type(k)) {
+							usadas |= 1 << j;
+							ordem[k] = espelho ? casas[j] ^ 56 : casas[j];
+							break;
+						}
+					}
+				}
+				return t.code(m.index(ordem, espelho ? 1 - vez : vez));
+			}
+
+			/**
+			 * Verifica se a casa e atacada pelas pecas do lado informado
+			 *
+			 * @param ignorar - peca capturada, que nao ataca mais
+			 */
+			private boolean atacada(int sq, int lado, long ocupacao, int ignorar) {
+				Color cor = lado == 0 ? Color.WHITE : Color.BLACK;
+				for (int j = 0; j < pecas; j++) {
+					if (j != ignorar && lado(j, lado)
+							&& (ataques(material.type(j), cor, casas[j], ocupacao) & (1L << sq)) != 0) {
+						return true;
+					}
+				}
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Valor de uma peca na chave da material
+	 */
+	private static int unidade(boolean forte, PieceType tipo) {
+		return 1 << ((forte ? Material.BITS_LADO : 0) + 3 * tipo.ordinal());
+	}
+
+	private static long ataques(PieceType tipo, Color cor, int sq, long ocupacao) {
+		switch (tipo) {
+		case PAWN:
+			return Attacks.pawn(cor, sq);
+		case KNIGHT:
+			return Attacks.knight(sq);
+		case BISHOP:
+			return Attacks.bishop(sq, ocupacao);
+		case ROOK:
+			return Attacks.rook(sq, ocupacao);
+		case QUEEN:
+			return Attacks.queen(sq, ocupacao);
+		default:
+			return Attacks.king(sq);
+		}
+	}
+}
@@ -0,0 +1,228 @@
+package chess.tablebase;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.Move;
+import chess.PieceType;
+
+/**
+ * Conjunto de tabelas de finais consultado pela busca. As consultas nao alocam
+ * memoria e podem ser feitas por varias threads.
+ *
+ * O resultado de {@link #probe(ChessMatch)} usa a escala de mate da busca: 0
+ * para empate, {@link #MATE} - n quando o jogador da vez da mate em n
+ * meios-lances e -({@link #MATE} - n) quando leva mate em n. -{@link #MATE}
+ * indica que o jogador da vez ja esta em check mate, o que responde o teste de
+ * mate sem gerar movimentos.
+ *
+ * As tabelas nao conhecem roque, en passant nem a regra dos 50 lances:
+ * posicoes com direito de roque ou en passant possivel nao sao consultadas.
+ *
+ * @author fsouviei
+ *
+ */
+public class Tablebases {
+
+	public static final int UNKNOWN = Integer.MIN_VALUE;
+	public static final int MATE = 30000;
+	public static final String EXTENSION = ".ctb";
+
+	private static final PieceType[] TIPOS = PieceType.values();
+
+	private final List<Tablebase> tabelas;
+	private final int[] chaves;
+	private final Tablebase[] indice;
+	private final int maxPieces;
+
+	/**
+	 * Carrega todas as tabelas (*.ctb) do diretorio
+	 *
+	 * @param dir
+	 * @throws IOException
+	 */
+	public Tablebases(Path dir) throws IOException {
+		this(carregar(dir));
+	}
+
+	public Tablebases(Collection<Tablebase> tables) {
+		tabelas = Collections.unmodifiableList(new ArrayList<>(tables));
+		int capacidade = Integer.highestOneBit(Math.max(1, tabelas.size()) * 4);
+		chaves = new int[capacidade];
+		indice = new Tablebase[capacidade];
+		int max = 0;
+		for (Tablebase t : tabelas) {
+			int i = posicao(t.getMaterial().key());
+			chaves[i] = t.getMaterial().key();
+			indice[i] = t;
+			max = Math.max(max, t.getMaterial().pieceCount());
+		}
+		maxPieces = max;
+	}
+
+	private static List<Tablebase> carregar(Path dir) throws IOException {
+		List<Tablebase> lista = new ArrayList<>();
+		try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(dir, "*" + EXTENSION)) {
+			for (Path arquivo : arquivos) {
+				lista.add(Tablebase.read(arquivo));
+			}
+		}
+		return lista;
+	}
+
+	/**
+	 * Enderecamento aberto pela chave da material
+	 */
+	private int posicao(int key) {
+		int i = (key * 0x9E3779B9) >>> (32 - Integer.numberOfTrailingZeros(chaves.length));
+		while (indice[i & (chaves.length - 1)] != null && chaves[i & (chaves.length - 1)] != key) {
+			i++;
+		}
+		return i & (chaves.length - 1);
+	}
+
+	private Tablebase tabela(int key) {
+		return indice[posicao(key)];
+	}
+
+	public List<Tablebase> getTables() {
+		return tabelas;
+	}
+
+	/**
+	 * Maior quantidade de pecas, reis incluidos, entre as tabelas carregadas
+	 *
+	 * @return
+	 */
+	public int getMaxPieces() {
+		return maxPieces;
+	}
+
+	/**
+	 * Resultado da posicao atual com jogo perfeito dos dois lados
+	 *
+	 * @param match
+	 * @return score na escala de {@link #MATE}, ou {@link #UNKNOWN} se nao houver
+	 *         tabela para a posicao
+	 */
+	public int probe(ChessMatch match) {
+		if (maxPieces == 0 || match.getCastlingRights() != 0) {
+			return UNKNOWN;
+		}
+		Color vez = match.getJogadorAtual();
+		if (match.getEnPassantVulnerable() != null && match.getBitboard(vez, PieceType.PAWN) != 0) {
+			return UNKNOWN;
+		}
+		int brancas = 0;
+		int pretas = 0;
+		int total = 2;
+		for (int t = 0; t < 5; t++) {
+			int b = Long.bitCount(match.getBitboard(Color.WHITE, TIPOS[t]));
+			int p = Long.bitCount(match.getBitboard(Color.BLACK, TIPOS[t]));
+			total += b + p;
+			if (total > maxPieces) {
+				return UNKNOWN;
+			}
+			brancas += b << (3 * t);
+			pretas += p << (3 * t);
+		}
+		boolean espelho = false;
+		Tablebase t = tabela(brancas << Material.BITS_LADO | pretas);
+		if (t == null) {
+			t = tabela(pretas << Material.BITS_LADO | brancas);
+			espelho = true;
+			if (t == null) {
+				return UNKNOWN;
+			}
+		}
+		Color forte = espelho ? Color.BLACK : Color.WHITE;
+		Color fraco = espelho ? Color.WHITE : Color.BLACK;
+		int flip = espelho ? 56 : 0;
+		boolean peoes = t.getMaterial().hasPawns();
+
+		int rei = Long.numberOfTrailingZeros(match.getBitboard(forte, PieceType.KING)) ^ flip;
+		int tr = Material.transformacao(rei, peoes);
+		int idx = Material.rei(Material.transformar(rei, tr), peoes);
+		idx = acumular(match, forte, flip, tr, idx);
+		int reiFraco = Long.numberOfTrailingZeros(match.getBitboard(fraco, PieceType.KING)) ^ flip;
+		idx = idx * 64 + Material.transformar(reiFraco, tr);
+		idx = acumular(match, fraco, flip, tr, idx);
+		return score(t.code(idx * 2 + (vez == forte ? 0 : 1)));
+	}
+
+	/**
+	 * Acrescenta ao indice as pecas de um lado, menos o rei, na ordem da material
+	 */
+	private static int acumular(ChessMatch match, Color color, int flip, int tr, int idx) {
+		for (PieceType tipo : Material.ORDEM) {
+			long pecas = match.getBitboard(color, tipo);
+			while (pecas != 0) {
+				idx = idx * 64 + Material.transformar(Long.numberOfTrailingZeros(pecas) ^ flip, tr);
+				pecas &= pecas - 1;
+			}
+		}
+		return idx;
+	}
+
+	/**
+	 * Melhor movimento pelas tabelas: o mate mais curto para quem vence, o mais
+	 * longo para quem perde
+	 *
+	 * @param match - partida; e alterada durante a consulta e restaurada
+	 * @return movimento, ou {@link Move#NONE} se a posicao nao estiver nas tabelas
+	 *         ou algum movimento levar a uma tabela ausente sem que haja vitoria
+	 *         garantida
+	 */
+	public int bestMove(ChessMatch match) {
+		if (probe(match) == UNKNOWN) {
+			return Move.NONE;
+		}
+		int[] moves = new int[Move.MAX_MOVES];
+		int count = match.generateLegalMoves(moves);
+		int melhor = Move.NONE;
+		int melhorScore = -MATE - 1;
+		boolean incompleto = false;
+		for (int i = 0; i < count; i++) {
+			match.makeMove(moves[i]);
+			int r = probe(match);
+			match.desfazMovimento();
+			if (r == UNKNOWN) {
+				incompleto = true;
+				continue;
+			}
+			// um meio-lance a mais, do ponto de vista de quem move
+			int score = r < 0 ? -r - 1 : r > 0 ? -r + 1 : 0;
+			if (score > melhorScore) {
+				melhorScore = score;
+				melhor = moves[i];
+			}
+		}
+		return incompleto && melhorScore <= 0 ? Move.NONE : melhor;
+	}
+
+	/**
+	 * Meios-lances ate o mate de um score de {@link #probe(ChessMatch)}
+	 *
+	 * @param score
+	 * @return
+	 */
+	public static int plies(int score) {
+		return MATE - Math.abs(score);
+	}
+
+	private static int score(int code) {
+		if (code == 0) {
+			return 0;
+		}
+		int plies = code - 1;
+		return (plies & 1) != 0 ? MATE - plies : -(MATE - plies);
+	}
+}